@@ -0,0 +1,67 @@
+package legacy;
+
+import legacy.dto.Amount;
+import legacy.hedge.HedgingPosition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pricing step of ExtAction: fixed-point units against the former double and String path. Run with -prof gc to
+ * compare the allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FixedPointDecimalBenchmark {
+
+	private Amount amount;
+	private double price;
+	private double fxPrice;
+	private double quantity;
+	private HedgingPosition hp;
+
+	@Setup
+	public void setUp() {
+		amount = new Amount();
+		amount.setPrice(97.0);
+		amount.setFxPrice(1.2345);
+		amount.setQuantity(378.0);
+		price = amount.getPrice();
+		fxPrice = amount.getFxPrice();
+		quantity = amount.getQuantity();
+		hp = new HedgingPosition();
+	}
+
+	@Benchmark
+	public long fixedPoint() {
+		long units = FixedPointDecimal.multiply(amount.getPriceUnits(), amount.getFxPriceUnits());
+		hp.setBasprxUnits(FixedPointDecimal.divide(units, FixedPointDecimal.HUNDRED));
+		hp.setPrxrefUnits(units);
+		hp.setQuantityUnits(amount.getQuantityUnits());
+		return hp.getBasprxUnits() + hp.getQuantityUnits();
+	}
+
+	/**
+	 * what ExtAction did before: double arithmetic and the quantity carried as a String
+	 */
+	@Benchmark
+	public int doubleAndString() {
+		double p = price * fxPrice;
+		double basprx = p / 100;
+		String q = String.valueOf(quantity);
+		return (int) (basprx + p) + q.length();
+	}
+}
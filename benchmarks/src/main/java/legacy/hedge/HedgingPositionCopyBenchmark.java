@@ -0,0 +1,62 @@
+package legacy.hedge;
+
+import legacy.dto.Modif;
+import org.apache.commons.lang3.SerializationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copy of a fully populated position: the copy constructor against the serialization round trip it replaces.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HedgingPositionCopyBenchmark {
+
+	private HedgingPosition hp;
+
+	@Setup
+	public void setUp() {
+		hp = new HedgingPosition();
+		hp.setId(42);
+		hp.setTransactionId(1042);
+		hp.setStatus(HedgingPositionStatusConst.PENDING);
+		hp.setValueDate(new Date());
+		hp.setNoticePeriodEndDate(new Date());
+		hp.setDaprx(new Date());
+		hp.setDatefinthe(new Date());
+		hp.setUpdateDate(new Date());
+		hp.setCombck("210 42 CONTROL: [0x0x0x01h]");
+		hp.setCodtyptra(BigInteger.valueOf(294));
+		hp.setPrxref(518.28);
+		hp.setQuantity("378.0");
+		hp.setIkRtH("autobot");
+		hp.setHedgeMsg("no message");
+		hp.setLastModification(new Modif());
+	}
+
+	@Benchmark
+	public HedgingPosition copyConstructor() {
+		return new HedgingPosition(hp);
+	}
+
+	@Benchmark
+	public HedgingPosition serializationClone() {
+		return SerializationUtils.clone(hp);
+	}
+}
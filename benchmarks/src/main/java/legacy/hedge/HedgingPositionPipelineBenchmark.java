@@ -0,0 +1,104 @@
+package legacy.hedge;
+
+import legacy.dto.Transaction;
+import legacy.error.CheckResult;
+import legacy.service.ZeroLatencyServices;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The stages of a position, each remote service answering at once: what is left is the cost of the code itself.
+ * Each invocation works on its own copy of a template position, since the stages change the position they are
+ * given; the copy, measured alone by {@link HedgingPositionCopyBenchmark}, is part of every score. The main method runs the
+ * benchmarks with the gc profiler, for the allocation rate next to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HedgingPositionPipelineBenchmark {
+
+	@State(Scope.Thread)
+	public static class Position {
+
+		@Param
+		private HedgingPositionTypeConst type;
+
+		private HedgingPositionManagementImpl management;
+		private Transaction transaction;
+		// never handed to the stages, only copied
+		private HedgingPosition pending;
+		private HedgingPosition initialized;
+
+		@Setup
+		public void setUp() {
+			ZeroLatencyServices services = ZeroLatencyServices.install();
+			management = new HedgingPositionManagementImpl();
+			transaction = services.getTransaction();
+			pending = new HedgingPosition();
+			pending.setId(transaction.getId());
+			pending.setType(type);
+			pending.setStatus(HedgingPositionStatusConst.PENDING);
+			initialized = management.initHedgingPosition(new HedgingPosition(pending));
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Deal {
+
+		private Transaction transaction;
+
+		@Setup
+		public void setUp() {
+			transaction = ZeroLatencyServices.newTransaction(1042);
+		}
+	}
+
+	@Benchmark
+	public HedgingPosition initHedgingPosition(Position position) {
+		return position.management.initHedgingPosition(new HedgingPosition(position.pending));
+	}
+
+	@Benchmark
+	public HedgingPosition updateHedgingPosition(Position position) {
+		return position.management.updateHedgingPosition(new HedgingPosition(position.initialized));
+	}
+
+	@Benchmark
+	public CheckResult<HedgingPosition> hedgingPositionMgt(Position position) {
+		return HedgingPositionMgt.hedgingPositionMgt(new HedgingPosition(position.initialized));
+	}
+
+	@Benchmark
+	public String transactionWay(Deal deal) {
+		return new HedgingPositionManagementImpl.TransactionWrapper(deal.transaction).getWay();
+	}
+
+	@Benchmark
+	public Transaction copyTransaction(Deal deal) {
+		return new Transaction(deal.transaction);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(HedgingPositionPipelineBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,70 @@
+package legacy.service;
+
+import legacy.dto.InputEnvelope;
+import legacy.dto.InputEvent;
+import legacy.hedge.HedgingPosition;
+import legacy.hedge.HedgingPositionStatusConst;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of an envelope of tickets. Run with -prof gc: gc.alloc.rate.norm stays flat whatever the
+ * number of tickets, the buffer is reused from one envelope to the next.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HedgingPositionXmlWriterBenchmark {
+
+	@Param({"1", "50"})
+	private int tickets;
+
+	private InputEnvelope envelope;
+	private HedgingPositionXmlWriter writer;
+
+	@Setup
+	public void setUp() {
+		List<InputEvent> events = new ArrayList<InputEvent>(tickets);
+		for (int i = 0; i < tickets; i++) {
+			HedgingPosition hp = new HedgingPosition();
+			hp.setId(i);
+			hp.setTransactionId(1000 + i);
+			hp.setStatus(HedgingPositionStatusConst.PENDING);
+			hp.setValueDate(new Date());
+			hp.setDaprx(new Date());
+			hp.setCombck((i * 5) + " " + i + " CONTROL: [0x0x0x01h]");
+			hp.setCodtyptra(BigInteger.valueOf(i * 7));
+			hp.setPrxref(i * 12.34);
+			hp.setBasprx(i * 0.1234);
+			hp.setQuantity(String.valueOf(i * 9.0));
+			hp.setIkRtH("autobot");
+			events.add(new InputEvent(hp));
+		}
+		envelope = new InputEnvelope(events);
+		writer = new HedgingPositionXmlWriter();
+	}
+
+	@Benchmark
+	public void writeEnvelope(Blackhole bh) {
+		bh.consume(writer.writeEnvelope(envelope).size());
+	}
+}
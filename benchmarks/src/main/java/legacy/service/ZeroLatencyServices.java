@@ -0,0 +1,138 @@
+package legacy.service;
+
+import legacy.FixedPointDecimal;
+import legacy.dto.Amount;
+import legacy.dto.Book;
+import legacy.dto.Transaction;
+import legacy.hedge.HedgingPosition;
+import legacy.persistence.ObjectDTO;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Remote services answering at once with canned data, so that the benchmarks measure the code around the calls.
+ * The Towering chunks are serialized and split as in production but never leave the JVM.
+ */
+public class ZeroLatencyServices implements ITradingDataAccessService, IHedgingPositionDataAccessService,
+		IAnalyticalService, ITransactionManagerService {
+
+	public static final String BOOK_NAME = "Golgoth Supra Book 2001";
+
+	private final Transaction transaction;
+	private final TradingOrder trade;
+	private final Book book = new Book(BOOK_NAME, 200);
+	private final Book bookInStock = new Book(BOOK_NAME + BookRegistry.IN_STOCK_SUFFIX, 201);
+
+	public ZeroLatencyServices() {
+		transaction = newTransaction(1042);
+		Amount price = new Amount();
+		price.setPriceUnits(FixedPointDecimal.fromDouble(518.28));
+		price.setFxPriceUnits(FixedPointDecimal.fromDouble(1.12));
+		price.setQuantityUnits(FixedPointDecimal.fromLong(378));
+		price.setCurrency("EUR");
+		trade = new TradingOrder();
+		trade.setPrice(price);
+		trade.setFixedCCY("EUR");
+		bookInStock.setPortfolioIdByRank("42");
+	}
+
+	public static Transaction newTransaction(int id) {
+		Transaction transaction = new Transaction();
+		transaction.setId(id);
+		transaction.setVersion(3);
+		transaction.setBookName(BOOK_NAME);
+		transaction.setOuterEdge(id * 9L);
+		transaction.setPositionKey("POS_" + id + "_cheval");
+		transaction.setWay(id % 2 == 0 ? TransactionWay.SHORT : TransactionWay.LONG);
+		transaction.setIssueDate(new Date());
+		transaction.setTradeDate(new Date());
+		transaction.setValueDate(new Date());
+		transaction.setCreDate(new Date());
+		return transaction;
+	}
+
+	/**
+	 * plug the stubs into the {@link ServiceRegistry} and Towering, envelopes leave with their first ticket
+	 */
+	public static ZeroLatencyServices install() {
+		ZeroLatencyServices services = new ZeroLatencyServices();
+		ServiceRegistry registry = ServiceRegistry.getInstance();
+		registry.register(ITradingDataAccessService.class, (ITradingDataAccessService) services);
+		registry.register(IHedgingPositionDataAccessService.class, (IHedgingPositionDataAccessService) services);
+		registry.register(IAnalyticalService.class, (IAnalyticalService) services);
+		registry.register(ITransactionManagerService.class, (ITransactionManagerService) services);
+		ToweringXMLHTTPServiceClient.setTransport(new ToweringChunkTransport() {
+			@Override
+			public void sendChunk(ToweringPayload payload, int chunk) {
+			}
+		});
+		ToweringEnvelopeBatcher.setInstance(new ToweringEnvelopeBatcher(1, 0));
+		return services;
+	}
+
+	public Transaction getTransaction() {
+		return transaction;
+	}
+
+	@Override
+	public Transaction getTransactionById(int id) {
+		return transaction;
+	}
+
+	@Override
+	public int getOptionalIdFromTransaction(Transaction transaction) {
+		return transaction.getId() * 5;
+	}
+
+	@Override
+	public long computeDPSOnTheGrid(Long id) {
+		return id == null ? 0 : id * 3;
+	}
+
+	@Override
+	public String getControl() {
+		return "0x0x0x01h";
+	}
+
+	@Override
+	public long getPriceQuote(long dId, Transaction transaction) {
+		return 518;
+	}
+
+	@Override
+	public String getHedgingPositionIdByPositionKey(String positionKey) {
+		return positionKey;
+	}
+
+	@Override
+	public String getHedgingTransactionIdByTransactionId(int id) {
+		return "HT_1042";
+	}
+
+	@Override
+	public TradingOrder getTrade(Integer id) {
+		return trade;
+	}
+
+	@Override
+	public Integer getRetrieveStockByActiveGK(Integer id, String transactionWay) {
+		return "L".equals(transactionWay) ? 12 : null;
+	}
+
+	@Override
+	public Book getBookByName(String bookName) {
+		return bookName.endsWith(BookRegistry.IN_STOCK_SUFFIX) ? bookInStock : book;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T extends ObjectDTO> T classStorageAction(HedgingPosition hp) {
+		return (T) hp;
+	}
+
+	@Override
+	public List<HedgingPosition> classStorageActions(List<HedgingPosition> hps) {
+		return hps;
+	}
+}
@@ -0,0 +1,273 @@
+package legacy;
+
+import legacy.dto.DayTypeScheme;
+import legacy.error.ARPSystemException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ *     Title: legacy.BusinessCalendar
+ * </p>
+ *
+ * <p>
+ *     Business days of a calendar, precomputed in a bit set from firstYear to lastYear: saturdays, sundays and the
+ *     holidays are off. Outside these years only the week-ends are off. Checking a day is one bit lookup, finding
+ *     the next or previous business day scans the bits.
+ * </p>
+ * <p>
+ *     The holiday file has one holiday per line, the calendar name then the date: <code>PARIS 2019-05-01</code>.
+ *     Blank lines and lines starting with # are ignored.
+ * </p>
+ */
+public class BusinessCalendar {
+
+	public static final int DEFAULT_FIRST_YEAR = 1970;
+	public static final int DEFAULT_LAST_YEAR = 2100;
+	/**
+	 * holiday file of the default calendar, only the week-ends are off when not set
+	 */
+	public static final String HOLIDAYS_FILE_PROPERTY = "legacy.holidays.file";
+	public static final String DEFAULT_CALENDAR = "DEFAULT";
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static volatile BusinessCalendar defaultCalendar;
+
+	private final String name;
+	private final int firstDay;
+	private final int lastDay;
+	private final BitSet businessDays;
+
+	/**
+	 * @param holidays
+	 * 			the holidays, in epoch days
+	 */
+	public BusinessCalendar(String name, Collection<Integer> holidays, int firstYear, int lastYear) {
+		this.name = name;
+		this.firstDay = EpochDay.of(firstYear, 1, 1);
+		this.lastDay = EpochDay.of(lastYear, 12, 31);
+		this.businessDays = new BitSet(lastDay - firstDay + 1);
+		for (int day = firstDay; day <= lastDay; day++) {
+			if (!EpochDay.isWeekend(day)) {
+				businessDays.set(day - firstDay);
+			}
+		}
+		for (int holiday : holidays) {
+			if (holiday >= firstDay && holiday <= lastDay) {
+				businessDays.clear(holiday - firstDay);
+			}
+		}
+	}
+
+	/**
+	 * a holiday file without the default calendar is a configuration error, not a calendar without holidays
+	 */
+	static BusinessCalendar getDefault(Map<String, BusinessCalendar> calendars, String file) {
+		BusinessCalendar calendar = calendars.get(DEFAULT_CALENDAR);
+		if (calendar == null) {
+			throw new ARPSystemException("No " + DEFAULT_CALENDAR + " calendar in the holiday file " + file
+					+ ", calendars found: " + calendars.keySet());
+		}
+		return calendar;
+	}
+
+	/**
+	 * @return the calendar of {@link DateTimeUtils#isBusinessDay(Date)}: {@link #DEFAULT_CALENDAR} in the holiday
+	 * file named by the {@link #HOLIDAYS_FILE_PROPERTY} system property, week-ends only without it
+	 * @throws ARPSystemException
+	 * 			if the holiday file has no {@link #DEFAULT_CALENDAR}
+	 */
+	public static BusinessCalendar getDefault() {
+		BusinessCalendar calendar = defaultCalendar;
+		if (calendar == null) {
+			synchronized (BusinessCalendar.class) {
+				if (defaultCalendar == null) {
+					String file = System.getProperty(HOLIDAYS_FILE_PROPERTY);
+					defaultCalendar = file == null ? new BusinessCalendar(DEFAULT_CALENDAR,
+							Collections.<Integer>emptyList(), DEFAULT_FIRST_YEAR, DEFAULT_LAST_YEAR)
+							: getDefault(load(new File(file)), file);
+				}
+				calendar = defaultCalendar;
+			}
+		}
+		return calendar;
+	}
+
+	/**
+	 * @return the calendars of the holiday file by name, over the default years
+	 */
+	public static Map<String, BusinessCalendar> load(File file) {
+		try {
+			Reader reader = new InputStreamReader(new FileInputStream(file), UTF_8);
+			try {
+				return load(reader, DEFAULT_FIRST_YEAR, DEFAULT_LAST_YEAR);
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			throw new ARPSystemException(e);
+		}
+	}
+
+	public static Map<String, BusinessCalendar> load(Reader holidays, int firstYear, int lastYear) throws IOException {
+		Map<String, List<Integer>> holidaysByCalendar = new HashMap<String, List<Integer>>();
+		BufferedReader lines = new BufferedReader(holidays);
+		int lineNumber = 0;
+		for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+			lineNumber++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String[] fields = line.split("\\s+");
+			if (fields.length != 2) {
+				throw new ARPSystemException("Line " + lineNumber + " is not <calendar> <yyyy-MM-dd>: " + line);
+			}
+			List<Integer> days = holidaysByCalendar.get(fields[0]);
+			if (days == null) {
+				days = new ArrayList<Integer>();
+				holidaysByCalendar.put(fields[0], days);
+			}
+			days.add(parseDay(fields[1], lineNumber));
+		}
+		Map<String, BusinessCalendar> calendars = new HashMap<String, BusinessCalendar>();
+		for (Map.Entry<String, List<Integer>> entry : holidaysByCalendar.entrySet()) {
+			calendars.put(entry.getKey(), new BusinessCalendar(entry.getKey(), entry.getValue(), firstYear, lastYear));
+		}
+		return calendars;
+	}
+
+	private static int parseDay(String date, int lineNumber) {
+		String[] parts = date.split("-");
+		try {
+			if (parts.length == 3) {
+				int month = Integer.parseInt(parts[1]);
+				int day = Integer.parseInt(parts[2]);
+				int year = Integer.parseInt(parts[0]);
+				if (month >= 1 && month <= 12 && day >= 1 && day <= EpochDay.lengthOfMonth(year, month)) {
+					return EpochDay.of(year, month, day);
+				}
+			}
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new ARPSystemException("Line " + lineNumber + ": " + date + " is not a yyyy-MM-dd date");
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public boolean isBusinessDay(int epochDay) {
+		if (epochDay < firstDay || epochDay > lastDay) {
+			return !EpochDay.isWeekend(epochDay);
+		}
+		return businessDays.get(epochDay - firstDay);
+	}
+
+	public boolean isBusinessDay(Date date) {
+		return isBusinessDay(EpochDay.getDefault().toEpochDay(date));
+	}
+
+	/**
+	 * @return the first business day after the day
+	 */
+	public int nextBusinessDay(int epochDay) {
+		int day = epochDay + 1;
+		if (day >= firstDay && day <= lastDay) {
+			int next = businessDays.nextSetBit(day - firstDay);
+			if (next >= 0 && next <= lastDay - firstDay) {
+				return firstDay + next;
+			}
+			day = lastDay + 1;
+		}
+		while (!isBusinessDay(day)) {
+			day++;
+		}
+		return day;
+	}
+
+	/**
+	 * @return the last business day before the day
+	 */
+	public int previousBusinessDay(int epochDay) {
+		int day = epochDay - 1;
+		if (day >= firstDay && day <= lastDay) {
+			int previous = businessDays.previousSetBit(day - firstDay);
+			if (previous >= 0) {
+				return firstDay + previous;
+			}
+			day = firstDay - 1;
+		}
+		while (!isBusinessDay(day)) {
+			day--;
+		}
+		return day;
+	}
+
+	/**
+	 * @return the day if it is a business day, else the next one
+	 */
+	public int following(int epochDay) {
+		return isBusinessDay(epochDay) ? epochDay : nextBusinessDay(epochDay);
+	}
+
+	/**
+	 * @return the following business day, or the previous one if the following is in the next month
+	 */
+	public int modifiedFollowing(int epochDay) {
+		int following = following(epochDay);
+		return EpochDay.month(following) != EpochDay.month(epochDay) ? previousBusinessDay(epochDay) : following;
+	}
+
+	/**
+	 * move the day by a tenor: D counts business days, W weeks rolled to the following business day, M, Q and Y
+	 * months, quarters and years, the day of month clamped to the end of the month, rolled modified following
+	 *
+	 * @param amount
+	 * 			number of tenors, negative to go back
+	 */
+	public int roll(int epochDay, int amount, DayTypeScheme tenor) {
+		switch (tenor) {
+			case D: {
+				int day = epochDay;
+				for (int i = 0; i < amount; i++) {
+					day = nextBusinessDay(day);
+				}
+				for (int i = 0; i > amount; i--) {
+					day = previousBusinessDay(day);
+				}
+				return day;
+			}
+			case W:
+				return following(epochDay + 7 * amount);
+			case M:
+				return modifiedFollowing(EpochDay.plusMonths(epochDay, amount));
+			case Q:
+				return modifiedFollowing(EpochDay.plusMonths(epochDay, 3 * amount));
+			case Y:
+				return modifiedFollowing(EpochDay.plusMonths(epochDay, 12 * amount));
+			default:
+				throw new IllegalArgumentException("Unknown tenor " + tenor);
+		}
+	}
+
+	public Date roll(Date date, int amount, DayTypeScheme tenor) {
+		EpochDay days = EpochDay.getDefault();
+		return new Date(days.toMillis(roll(days.toEpochDay(date), amount, tenor)));
+	}
+}
@@ -1,8 +1,6 @@
 package legacy;
 
-import java.util.Calendar;
 import java.util.Date;
-import java.util.GregorianCalendar;
 
 
 /**
@@ -19,38 +17,28 @@ import java.util.GregorianCalendar;
 
 public class DateTimeUtils {
 
+	/**
+	 * The historical comparison, kept as is because the ExtAction dates depend on it: the day of the week of d2
+	 * (0 for Sunday) must equal the day of the week of d1, its year - 1900 and its month from 0. Computed on epoch
+	 * days in the default time zone, without the deprecated Date getters.
+	 * {@link EpochDay#isSameDay(Date, Date)} is the same day comparison.
+	 *
+	 * @return true if both dates are null or match as above
+	 */
 	public static boolean compareDate(Date d1, Date d2) {
-		if (d1==null) {
-			if (d2==null) {
-				return true;
-			} else {
-				return false;
-			}
-		} else {
-			if (d2==null) {
-				return false;
-			} else {
-				return compareNotNullDate(d1, d2);
-			}
-		}
-	}
-
-	private static boolean compareNotNullDate(Date d1, Date d2) {
-		if ((d1.getDay() == d2.getDay())
-				&& (d1.getYear() == d2.getDay())
-				&& (d1.getMonth() == d2.getDay())) {
-			return true;
-		} else {
-			return false;
+		if (d1 == null || d2 == null) {
+			return d1 == d2;
 		}
+		EpochDay days = EpochDay.getDefault();
+		int day1 = days.toEpochDay(d1);
+		int dayOfWeek2 = EpochDay.dayOfWeek(days.toEpochDay(d2)) % 7;
+		return EpochDay.dayOfWeek(day1) % 7 == dayOfWeek2
+				&& EpochDay.year(day1) - 1900 == dayOfWeek2
+				&& EpochDay.month(day1) - 1 == dayOfWeek2;
 	}
 
 	public static boolean isBusinessDay(Date date) {
-		Calendar c = GregorianCalendar.getInstance();
-		c.setTime(date);
-		// WTF !!!?!
-		int dateDayOfWeak = c.get(Calendar.DAY_OF_WEEK);
-		return !(dateDayOfWeak == Calendar.SATURDAY || dateDayOfWeak == Calendar.SUNDAY);
+		return BusinessCalendar.getDefault().isBusinessDay(date);
 	}
 
 }
@@ -0,0 +1,166 @@
+package legacy;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * <p>
+ *     Title: legacy.EpochDay
+ * </p>
+ *
+ * <p>
+ *     Days as int numbers, 0 being 1970-01-01, in a time zone resolved once at construction. Converting, comparing
+ *     and checking ranges allocate nothing, unlike Calendar.
+ * </p>
+ */
+public final class EpochDay {
+
+	public static final long MILLIS_PER_DAY = 86400000L;
+
+	public static final int MONDAY = 1;
+	public static final int SATURDAY = 6;
+	public static final int SUNDAY = 7;
+
+	private static final EpochDay DEFAULT = new EpochDay(TimeZone.getDefault());
+
+	private final TimeZone zone;
+
+	public EpochDay(TimeZone zone) {
+		this.zone = (TimeZone) zone.clone();
+	}
+
+	/**
+	 * @return the days in the default time zone of the JVM, as it was when this class was loaded
+	 */
+	public static EpochDay getDefault() {
+		return DEFAULT;
+	}
+
+	public TimeZone getTimeZone() {
+		return (TimeZone) zone.clone();
+	}
+
+	public int toEpochDay(long millis) {
+		long local = millis + zone.getOffset(millis);
+		long day = local / MILLIS_PER_DAY;
+		if (local % MILLIS_PER_DAY < 0) {
+			day--;
+		}
+		return (int) day;
+	}
+
+	public int toEpochDay(Date date) {
+		return toEpochDay(date.getTime());
+	}
+
+	/**
+	 * @return the first millisecond of the day
+	 */
+	public long toMillis(int epochDay) {
+		long local = epochDay * MILLIS_PER_DAY;
+		return local - zone.getOffset(local - zone.getOffset(local));
+	}
+
+	/**
+	 * @return true if both dates are null or fall on the same day
+	 */
+	public boolean isSameDay(Date d1, Date d2) {
+		if (d1 == null || d2 == null) {
+			return d1 == d2;
+		}
+		return toEpochDay(d1.getTime()) == toEpochDay(d2.getTime());
+	}
+
+	/**
+	 * @param start
+	 * 			first day of the range, null for no lower bound
+	 * @param end
+	 * 			last day of the range, included, null for no upper bound
+	 */
+	public boolean isInRange(Date date, Date start, Date end) {
+		int day = toEpochDay(date.getTime());
+		return (start == null || day >= toEpochDay(start.getTime()))
+				&& (end == null || day <= toEpochDay(end.getTime()));
+	}
+
+	/**
+	 * @return the ISO day of the week, from {@link #MONDAY} 1 to {@link #SUNDAY} 7
+	 */
+	public static int dayOfWeek(int epochDay) {
+		// 1970-01-01 was a Thursday
+		int d = (epochDay + 3) % 7;
+		return (d < 0 ? d + 7 : d) + 1;
+	}
+
+	public static boolean isWeekend(int epochDay) {
+		return dayOfWeek(epochDay) >= SATURDAY;
+	}
+
+	/**
+	 * @param month
+	 * 			from 1 to 12
+	 */
+	public static int of(int year, int month, int dayOfMonth) {
+		// see http://howardhinnant.github.io/date_algorithms.html
+		int y = month <= 2 ? year - 1 : year;
+		int era = (y >= 0 ? y : y - 399) / 400;
+		int yoe = y - era * 400;
+		int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + dayOfMonth - 1;
+		int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+		return era * 146097 + doe - 719468;
+	}
+
+	/**
+	 * @return the year of the day
+	 */
+	public static int year(int epochDay) {
+		int z = epochDay + 719468;
+		int era = (z >= 0 ? z : z - 146096) / 146097;
+		int doe = z - era * 146097;
+		int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+		int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+		int mp = (5 * doy + 2) / 153;
+		return yoe + era * 400 + (mp >= 10 ? 1 : 0);
+	}
+
+	/**
+	 * @return the month of the day, from 1 to 12
+	 */
+	public static int month(int epochDay) {
+		int z = epochDay + 719468;
+		int era = (z >= 0 ? z : z - 146096) / 146097;
+		int doe = z - era * 146097;
+		int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+		int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+		int mp = (5 * doy + 2) / 153;
+		return mp < 10 ? mp + 3 : mp - 9;
+	}
+
+	/**
+	 * @return the same day of the month, months later, or the last day of that month if it is shorter
+	 */
+	public static int plusMonths(int epochDay, int months) {
+		int z = epochDay + 719468;
+		int era = (z >= 0 ? z : z - 146096) / 146097;
+		int doe = z - era * 146097;
+		int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+		int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+		int mp = (5 * doy + 2) / 153;
+		int dayOfMonth = doy - (153 * mp + 2) / 5 + 1;
+		int month = mp < 10 ? mp + 3 : mp - 9;
+		int year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+		int monthIndex = year * 12 + month - 1 + months;
+		int newYear = monthIndex >= 0 ? monthIndex / 12 : (monthIndex - 11) / 12;
+		int newMonth = monthIndex - newYear * 12 + 1;
+		return of(newYear, newMonth, Math.min(dayOfMonth, lengthOfMonth(newYear, newMonth)));
+	}
+
+	public static int lengthOfMonth(int year, int month) {
+		if (month == 2) {
+			boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+			return leap ? 29 : 28;
+		}
+		return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+	}
+}
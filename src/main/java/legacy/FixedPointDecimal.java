@@ -0,0 +1,202 @@
+package legacy;
+
+/**
+ * <p>
+ *     Title: legacy.FixedPointDecimal
+ * </p>
+ *
+ * <p>
+ *     Decimals held in a long as a number of units of 10^-{@link #DECIMALS}: 12.5 is 125000 units. The operations
+ *     work on the units, round half away from zero to the last decimal and allocate nothing; an overflow throws an
+ *     ArithmeticException. {@link #NULL} stands for no value.
+ * </p>
+ */
+public final class FixedPointDecimal {
+
+	/**
+	 * decimals kept, the MAX_DECIMALS of the hedging prices
+	 */
+	public static final int DECIMALS = 4;
+	public static final long ONE = 10000L;
+	public static final long HUNDRED = 100 * ONE;
+	public static final long NULL = Long.MIN_VALUE;
+
+	// largest absolute value converted from a double without losing the last decimal
+	private static final double MAX_EXACT_DOUBLE = (double) (1L << 53) / ONE;
+	private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L};
+
+	private FixedPointDecimal() {
+	}
+
+	public static long fromLong(long value) {
+		if (value > Long.MAX_VALUE / ONE || value < -(Long.MAX_VALUE / ONE)) {
+			throw new ArithmeticException("Overflow: " + value);
+		}
+		return value * ONE;
+	}
+
+	/**
+	 * Unlike a double field, the units cannot hold every double: NaN, the infinities and the values whose
+	 * absolute value reaches 2^53 / 10^{@link #DECIMALS} (about 9.0E11) are rejected.
+	 *
+	 * @throws ArithmeticException
+	 * 			if the value is not a finite {@link #DECIMALS} decimals value
+	 */
+	public static long fromDouble(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= MAX_EXACT_DOUBLE) {
+			throw new ArithmeticException("Not a " + DECIMALS + " decimals value: " + value);
+		}
+		return Math.round(value * ONE);
+	}
+
+	public static double toDouble(long units) {
+		return (double) units / ONE;
+	}
+
+	public static long add(long a, long b) {
+		long sum = a + b;
+		if (((a ^ sum) & (b ^ sum)) < 0) {
+			throw new ArithmeticException("Overflow: " + a + " + " + b);
+		}
+		return sum;
+	}
+
+	public static long subtract(long a, long b) {
+		long difference = a - b;
+		if (((a ^ b) & (a ^ difference)) < 0) {
+			throw new ArithmeticException("Overflow: " + a + " - " + b);
+		}
+		return difference;
+	}
+
+	public static long multiply(long a, long b) {
+		// a * b / ONE = (a / ONE) * b + (a % ONE) * b / ONE, without the overflow of a * b
+		long high = a / ONE;
+		long low = a % ONE;
+		long highProduct = high * b;
+		if (high != 0 && (highProduct / high != b || (high == -1 && b == Long.MIN_VALUE))) {
+			throw new ArithmeticException("Overflow: " + a + " * " + b);
+		}
+		if (low != 0 && Math.abs(b) > Long.MAX_VALUE / Math.abs(low)) {
+			throw new ArithmeticException("Overflow: " + a + " * " + b);
+		}
+		return add(highProduct, divideRounded(low * b, ONE));
+	}
+
+	public static long divide(long a, long b) {
+		if (b == 0) {
+			throw new ArithmeticException("Division by zero");
+		}
+		// a * ONE / b = (a / b) * ONE + (a % b) * ONE / b
+		long quotient = a / b;
+		long remainder = a % b;
+		if (Math.abs(remainder) > Long.MAX_VALUE / ONE) {
+			throw new ArithmeticException("Overflow: " + a + " / " + b);
+		}
+		return add(fromLong(quotient), divideRounded(remainder * ONE, b));
+	}
+
+	/**
+	 * @param decimals
+	 * 			between 0 and {@link #DECIMALS}
+	 * @return the value rounded to that many decimals
+	 */
+	public static long round(long units, int decimals) {
+		if (decimals < 0 || decimals > DECIMALS) {
+			throw new IllegalArgumentException("decimals must be between 0 and " + DECIMALS + ": " + decimals);
+		}
+		long step = POWERS_OF_TEN[DECIMALS - decimals];
+		return divideRounded(units, step) * step;
+	}
+
+	private static long divideRounded(long dividend, long divisor) {
+		long quotient = dividend / divisor;
+		long remainder = dividend % divisor;
+		if (Math.abs(remainder) * 2 >= Math.abs(divisor)) {
+			quotient += (dividend < 0) == (divisor < 0) ? 1 : -1;
+		}
+		return quotient;
+	}
+
+	/**
+	 * @return the number of decimals to print, trailing zeros dropped but at least minDecimals
+	 */
+	public static int significantDecimals(long units, int minDecimals) {
+		long fraction = Math.abs(units % ONE);
+		int decimals = DECIMALS;
+		while (decimals > minDecimals && fraction % 10 == 0) {
+			fraction /= 10;
+			decimals--;
+		}
+		return decimals;
+	}
+
+	/**
+	 * same text as Double.toString from 10^-3 to 10^7: at least one decimal, no trailing zeros, never an exponent
+	 */
+	public static String toString(long units) {
+		StringBuilder b = new StringBuilder(24);
+		if (units < 0) {
+			b.append('-');
+		}
+		long integer = Math.abs(units / ONE);
+		long fraction = Math.abs(units % ONE);
+		b.append(integer).append('.');
+		int decimals = significantDecimals(units, 1);
+		fraction /= POWERS_OF_TEN[DECIMALS - decimals];
+		for (long p = POWERS_OF_TEN[decimals - 1]; p > 1 && fraction < p; p /= 10) {
+			b.append('0');
+		}
+		b.append(fraction);
+		return b.toString();
+	}
+
+	/**
+	 * parse a plain decimal, more than {@link #DECIMALS} decimals are rounded, exponents go through a double
+	 */
+	public static long parse(String s) {
+		int length = s.length();
+		int i = 0;
+		boolean negative = false;
+		if (length > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+')) {
+			negative = s.charAt(0) == '-';
+			i++;
+		}
+		long integer = 0;
+		long fraction = 0;
+		int decimals = 0;
+		boolean roundUp = false;
+		boolean digits = false;
+		boolean point = false;
+		for (; i < length; i++) {
+			char c = s.charAt(i);
+			if (c == '.' && !point) {
+				point = true;
+			} else if (c >= '0' && c <= '9') {
+				digits = true;
+				if (!point) {
+					if (integer > (Long.MAX_VALUE / ONE - 9) / 10) {
+						throw new ArithmeticException("Overflow: " + s);
+					}
+					integer = integer * 10 + (c - '0');
+				} else if (decimals < DECIMALS) {
+					fraction = fraction * 10 + (c - '0');
+					decimals++;
+				} else if (decimals == DECIMALS) {
+					roundUp = c >= '5';
+					decimals++;
+				}
+			} else if (c == 'E' || c == 'e') {
+				return fromDouble(Double.parseDouble(s));
+			} else {
+				throw new NumberFormatException("Not a decimal: " + s);
+			}
+		}
+		if (!digits) {
+			throw new NumberFormatException("Not a decimal: " + s);
+		}
+		long units = integer * ONE + fraction * POWERS_OF_TEN[DECIMALS - Math.min(decimals, DECIMALS)]
+				+ (roundUp ? 1 : 0);
+		return negative ? -units : units;
+	}
+}
@@ -0,0 +1,100 @@
+package legacy;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ *     Title: legacy.LatencyHistogram
+ * </p>
+ * <p>
+ *     Counts of latencies in log-linear buckets: exact up to 127 ns, then 64 buckets per power of two, so that a
+ *     percentile is within 1.6% of the recorded value. Recording is one array increment, safe from any thread and
+ *     without locks. Latencies above {@link #MAX_TRACKABLE_NANOS} (about 18 minutes) are counted as that value.
+ * </p>
+ */
+public class LatencyHistogram {
+
+	public static final long MAX_TRACKABLE_NANOS = (1L << 40) - 1;
+
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int LINEAR_BUCKETS = 2 * SUB_BUCKETS;
+	private static final int BUCKETS = indexOf(MAX_TRACKABLE_NANOS) + 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong totalCount = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	private static int indexOf(long nanos) {
+		if (nanos < LINEAR_BUCKETS) {
+			return (int) nanos;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+		return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (nanos >>> shift) - SUB_BUCKETS;
+	}
+
+	/**
+	 * @return the highest latency counted in the bucket
+	 */
+	private static long highestValueOf(int index) {
+		if (index < LINEAR_BUCKETS) {
+			return index;
+		}
+		int bucket = index - LINEAR_BUCKETS;
+		int shift = bucket / SUB_BUCKETS + 1;
+		long lowest = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	public void record(long nanos) {
+		long value = nanos < 0 ? 0 : Math.min(nanos, MAX_TRACKABLE_NANOS);
+		counts.incrementAndGet(indexOf(value));
+		totalCount.incrementAndGet();
+		long current = max.get();
+		while (value > current && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+
+	public long getTotalCount() {
+		return totalCount.get();
+	}
+
+	public long getMaxValue() {
+		return max.get();
+	}
+
+	/**
+	 * @param percentile
+	 * 			from 0 to 100, 99.99 for the latency 9,999 out of 10,000 recordings are under
+	 * @return the latency in nanoseconds, 0 when nothing was recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("percentile must be from 0 to 100: " + percentile);
+		}
+		long total = totalCount.get();
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestValueOf(i), max.get());
+			}
+		}
+		// recordings landed while scanning
+		return max.get();
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		totalCount.set(0);
+		max.set(0);
+	}
+}
@@ -1,34 +1,73 @@
 package legacy.dto;
 
+import legacy.FixedPointDecimal;
 import legacy.persistence.BaseDTO;
 
+/**
+ * quantity and prices are held in {@link FixedPointDecimal} units, the double accessors convert
+ */
 public class Amount extends BaseDTO {
-	private double quantity;
-	private double price;
-	private double fxPrice;
+	private long quantity;
+	private long price;
+	private long fxPrice;
 	private String Currency;
 
+	public Amount() {
+	}
+
+	public Amount(Amount source) {
+		super(source);
+		this.quantity = source.quantity;
+		this.price = source.price;
+		this.fxPrice = source.fxPrice;
+		this.Currency = source.Currency;
+	}
+
 	public double getQuantity() {
-		return quantity;
+		return FixedPointDecimal.toDouble(quantity);
 	}
 
 	public void setQuantity(double quantity) {
+		this.quantity = FixedPointDecimal.fromDouble(quantity);
+	}
+
+	public long getQuantityUnits() {
+		return quantity;
+	}
+
+	public void setQuantityUnits(long quantity) {
 		this.quantity = quantity;
 	}
 
 	public double getPrice() {
-		return price;
+		return FixedPointDecimal.toDouble(price);
 	}
 
 	public void setPrice(double price) {
+		this.price = FixedPointDecimal.fromDouble(price);
+	}
+
+	public long getPriceUnits() {
+		return price;
+	}
+
+	public void setPriceUnits(long price) {
 		this.price = price;
 	}
 
 	public double getFxPrice() {
-		return fxPrice;
+		return FixedPointDecimal.toDouble(fxPrice);
 	}
 
 	public void setFxPrice(double fxPrice) {
+		this.fxPrice = FixedPointDecimal.fromDouble(fxPrice);
+	}
+
+	public long getFxPriceUnits() {
+		return fxPrice;
+	}
+
+	public void setFxPriceUnits(long fxPrice) {
 		this.fxPrice = fxPrice;
 	}
 
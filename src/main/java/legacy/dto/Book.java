@@ -12,6 +12,13 @@ public class Book extends BaseDTO {
 		this.code = code;
 	}
 
+	public Book(Book source) {
+		super(source);
+		this.name = source.name;
+		this.code = source.code;
+		this.portfolioIdByRank = source.portfolioIdByRank;
+	}
+
 	public String getName() {
 		return name;
 	}
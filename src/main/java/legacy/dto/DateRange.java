@@ -1,8 +1,8 @@
 package legacy.dto;
 
+import legacy.EpochDay;
 import legacy.persistence.BaseDTO;
 
-import java.util.Calendar;
 import java.util.Date;
 
 public class DateRange extends BaseDTO {
@@ -10,34 +10,27 @@ public class DateRange extends BaseDTO {
 	private Date start;
 	private Date end;
 
-	private boolean compareDate(Date date1, Date date2) {
-		if (date1==null) {
-			if (date2==null) {
-				return true;
-			} else {
-				return false;
-			}
-		} else {
-			if (date2==null) {
-				return false;
-			} else {
-				return compareNotNullDate(date1, date2);
-			}
-		}
-	}
-
-	private boolean compareNotNullDate(Date date1, Date date2) {
-		Calendar cal1 = Calendar.getInstance();
-		cal1.setTime(date2);
-		Calendar cal2 = Calendar.getInstance();
-		cal2.setTime(date1);
-		if ((cal1.get(Calendar.DAY_OF_MONTH) == cal2.get(Calendar.DAY_OF_MONTH))
-				&& (cal1.get(Calendar.MONTH) == cal2.get(Calendar.MONTH))
-				&& (cal1.get(Calendar.YEAR) == cal2.get(Calendar.YEAR))) {
-			return true;
-		} else {
-			return false;
-		}
+	public DateRange() {
+	}
+
+	public DateRange(DateRange source) {
+		super(source);
+		this.start = copyOf(source.start);
+		this.end = copyOf(source.end);
+	}
+
+	/**
+	 * @return true if the date falls between the start day and the end day, both included, a null bound is open
+	 */
+	public boolean contains(Date date) {
+		return date != null && EpochDay.getDefault().isInRange(date, start, end);
+	}
+
+	/**
+	 * @return true if the range starts and ends on the same day
+	 */
+	public boolean isSingleDay() {
+		return start != null && EpochDay.getDefault().isSameDay(start, end);
 	}
 
 	public Date getStart() {
@@ -0,0 +1,32 @@
+package legacy.dto;
+
+import legacy.persistence.BaseDTO;
+
+import java.util.List;
+
+/**
+ * <p>
+ *     Title: legacy.dto.InputEnvelope
+ * </p>
+ * <p>several tickets sent to Towering in one exchange, numbered from 1 in the envelope: the id of a ticket is
+ * its rank</p>
+ */
+public class InputEnvelope extends BaseDTO {
+
+	private final List<InputEvent> events;
+
+	public InputEnvelope(List<InputEvent> events) {
+		this.events = events;
+		for (int i = 0; i < events.size(); i++) {
+			events.get(i).setId(i + 1);
+		}
+	}
+
+	public List<InputEvent> getEvents() {
+		return events;
+	}
+
+	public int size() {
+		return events.size();
+	}
+}
@@ -1,8 +1,11 @@
 package legacy.dto;
 
 import legacy.persistence.BaseDTO;
+import legacy.persistence.FieldChange;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 public class Modif extends BaseDTO {
 
@@ -11,6 +14,20 @@ public class Modif extends BaseDTO {
 	private Date modificationDate;
 	private String user = null;
 	private int version = 0;
+	private List<FieldChange> changes = null;
+
+	public Modif() {
+	}
+
+	public Modif(Modif source) {
+		super(source);
+		this.auditableClassName = source.auditableClassName;
+		this.DTOID = source.DTOID;
+		this.modificationDate = copyOf(source.modificationDate);
+		this.user = source.user;
+		this.version = source.version;
+		this.changes = source.changes == null ? null : new ArrayList<FieldChange>(source.changes);
+	}
 
 	public String getAuditableClassName() {
 		return auditableClassName;
@@ -51,4 +68,15 @@ public class Modif extends BaseDTO {
 	public void setVersion(int version) {
 		this.version = version;
 	}
+
+	/**
+	 * @return the audited fields changed by this modification
+	 */
+	public List<FieldChange> getChanges() {
+		return changes;
+	}
+
+	public void setChanges(List<FieldChange> changes) {
+		this.changes = changes;
+	}
 }
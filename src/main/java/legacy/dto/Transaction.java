@@ -15,6 +15,21 @@ public class Transaction extends BaseDTO {
 	private Date tradeDate;
 	private DateRange dateRange;
 
+	public Transaction() {
+	}
+
+	public Transaction(Transaction source) {
+		super(source);
+		this.valueDate = copyOf(source.valueDate);
+		this.outerEdge = source.outerEdge;
+		this.way = source.way;
+		this.bookName = source.bookName;
+		this.positionKey = source.positionKey;
+		this.issueDate = copyOf(source.issueDate);
+		this.tradeDate = copyOf(source.tradeDate);
+		this.dateRange = source.dateRange == null ? null : new DateRange(source.dateRange);
+	}
+
 	public Date getValueDate() {
 		return valueDate;
 	}
@@ -0,0 +1,88 @@
+package legacy.hedge;
+
+/**
+ * <p>
+ *     Title: legacy.hedge.HedgingEvent
+ * </p>
+ * <p>
+ *     One step of the life of a position, timed: its initialization, a remote service call, a Towering chunk or a
+ *     storage action. The wall clock start lines the event up with the GC and thread dumps of the same period.
+ * </p>
+ */
+public class HedgingEvent {
+
+	public enum Kind {
+		INIT,
+		REMOTE_CALL,
+		TOWERING_CHUNK,
+		STORAGE
+	}
+
+	private final Kind kind;
+	private final String name;
+	private final int transactionId;
+	private final HedgingPositionTypeConst type;
+	private final String outcome;
+	private final long startMillis;
+	private final long durationNanos;
+	private final String thread;
+
+	/**
+	 * @param name
+	 * 			what the step did: the service method, the storage action, the chunk
+	 * @param outcome
+	 * 			{@link HedgingEvents#OK} or what went wrong
+	 */
+	public HedgingEvent(Kind kind, String name, int transactionId, HedgingPositionTypeConst type, String outcome,
+			long startMillis, long durationNanos, String thread) {
+		this.kind = kind;
+		this.name = name;
+		this.transactionId = transactionId;
+		this.type = type;
+		this.outcome = outcome;
+		this.startMillis = startMillis;
+		this.durationNanos = durationNanos;
+		this.thread = thread;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getTransactionId() {
+		return transactionId;
+	}
+
+	/**
+	 * @return null when the event is not bound to a position
+	 */
+	public HedgingPositionTypeConst getType() {
+		return type;
+	}
+
+	public String getOutcome() {
+		return outcome;
+	}
+
+	public long getStartMillis() {
+		return startMillis;
+	}
+
+	public long getDurationNanos() {
+		return durationNanos;
+	}
+
+	public String getThread() {
+		return thread;
+	}
+
+	@Override
+	public String toString() {
+		return startMillis + "\t" + kind + "\t" + name + "\t" + transactionId + "\t" + type + "\t" + outcome
+				+ "\t" + durationNanos + "\t" + thread;
+	}
+}
@@ -0,0 +1,92 @@
+package legacy.hedge;
+
+import legacy.error.ARPSystemException;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ *     Title: legacy.hedge.HedgingEventRecorder
+ * </p>
+ * <p>
+ *     Keeps the last events between {@link #start()} and {@link #stop()}, the oldest are dropped once maxEvents
+ *     are kept. The dump has one tab separated line per event, in the order of {@link HedgingEvent#toString()}.
+ * </p>
+ */
+public class HedgingEventRecorder implements HedgingEvents.Listener {
+
+	public static final int DEFAULT_MAX_EVENTS = 100000;
+
+	private final int maxEvents;
+	private final ArrayDeque<HedgingEvent> events = new ArrayDeque<HedgingEvent>();
+	private long dropped;
+
+	public HedgingEventRecorder() {
+		this(DEFAULT_MAX_EVENTS);
+	}
+
+	public HedgingEventRecorder(int maxEvents) {
+		if (maxEvents < 1) {
+			throw new IllegalArgumentException("maxEvents must be at least 1: " + maxEvents);
+		}
+		this.maxEvents = maxEvents;
+	}
+
+	public void start() {
+		HedgingEvents.addListener(this);
+	}
+
+	public void stop() {
+		HedgingEvents.removeListener(this);
+	}
+
+	@Override
+	public synchronized void onEvent(HedgingEvent event) {
+		if (events.size() == maxEvents) {
+			events.removeFirst();
+			dropped++;
+		}
+		events.addLast(event);
+	}
+
+	public synchronized List<HedgingEvent> getEvents() {
+		return new ArrayList<HedgingEvent>(events);
+	}
+
+	/**
+	 * @return the number of events dropped to make room for newer ones
+	 */
+	public synchronized long getDroppedCount() {
+		return dropped;
+	}
+
+	public synchronized void clear() {
+		events.clear();
+		dropped = 0;
+	}
+
+	public void dump(File file) {
+		try {
+			Writer writer = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"));
+			try {
+				writer.write("# start kind name transactionId type outcome durationNanos thread\n");
+				for (HedgingEvent event : getEvents()) {
+					writer.write(event.toString());
+					writer.write('\n');
+				}
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			throw new ARPSystemException(e);
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package legacy.hedge;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ *     Title: legacy.hedge.HedgingEvents
+ * </p>
+ * <p>
+ *     Hands the {@link HedgingEvent}s to the listeners. Without listener nothing is built: the call sites check
+ *     {@link #isEnabled()}, one volatile read, before reading the clock.
+ * </p>
+ * <p>
+ *     The position processed by a thread is bound to it with {@link #setCurrentPosition(HedgingPosition)}, so
+ *     that the remote calls made on its behalf carry its transaction id and type. The transaction id of a position
+ *     is the id its transaction is looked up by, {@link HedgingPosition#getId()}: the transactionId field is only
+ *     set by the INI action, once its lookups are over.
+ * </p>
+ */
+public final class HedgingEvents {
+
+	public static final String OK = "OK";
+
+	public interface Listener {
+		void onEvent(HedgingEvent event);
+	}
+
+	private static Logger LOGGER = Logger.getLogger(HedgingEvents.class.getName());
+	private static final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+	private static final ThreadLocal<HedgingPosition> currentPosition = new ThreadLocal<HedgingPosition>();
+	private static volatile boolean enabled;
+
+	private HedgingEvents() {
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static synchronized void addListener(Listener listener) {
+		listeners.add(listener);
+		enabled = true;
+	}
+
+	public static synchronized void removeListener(Listener listener) {
+		listeners.remove(listener);
+		enabled = !listeners.isEmpty();
+	}
+
+	/**
+	 * @return the position bound before, to restore once done
+	 */
+	public static HedgingPosition setCurrentPosition(HedgingPosition hp) {
+		HedgingPosition previous = currentPosition.get();
+		if (hp == null) {
+			currentPosition.remove();
+		} else {
+			currentPosition.set(hp);
+		}
+		return previous;
+	}
+
+	/**
+	 * @return the position bound to this thread, null if none
+	 */
+	public static HedgingPosition getCurrentPosition() {
+		return currentPosition.get();
+	}
+
+	/**
+	 * @return {@link #OK} without failure, the kind of failure otherwise
+	 */
+	public static String outcomeOf(Throwable failure) {
+		return failure == null ? OK : failure.getClass().getSimpleName();
+	}
+
+	/**
+	 * @param hp
+	 * 			the position the step was for, null if none, keyed by the id its transaction is looked up by
+	 * @param startNanos
+	 * 			the {@link System#nanoTime()} when the step started
+	 */
+	public static void commit(HedgingEvent.Kind kind, String name, HedgingPosition hp, String outcome, long startNanos) {
+		commit(kind, name, hp == null ? 0 : hp.getId(), hp == null ? null : hp.getType(), outcome, startNanos);
+	}
+
+	public static void commit(HedgingEvent.Kind kind, String name, int transactionId, HedgingPositionTypeConst type,
+			String outcome, long startNanos) {
+		if (!enabled) {
+			return;
+		}
+		long durationNanos = System.nanoTime() - startNanos;
+		HedgingEvent event = new HedgingEvent(kind, name, transactionId, type, outcome,
+				System.currentTimeMillis() - durationNanos / 1000000, durationNanos, Thread.currentThread().getName());
+		for (Listener listener : listeners) {
+			try {
+				listener.onEvent(event);
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.WARNING, "Listener cannot take event " + event, e);
+			}
+		}
+	}
+}
@@ -3,9 +3,11 @@ package legacy.hedge; /**
  *
  */
 
+import legacy.FixedPointDecimal;
 import legacy.error.ErrorLevel;
 import legacy.persistence.AuditedField;
 import legacy.persistence.BaseDTO;
+import legacy.persistence.Indexed;
 import legacy.persistence.StorageActionEnum;
 
 import java.math.BigInteger;
@@ -26,12 +28,16 @@ public class HedgingPosition extends BaseDTO {
 
 	/******************* Data required for processing*************************/
 	@AuditedField
+	@Indexed
 	private int transactionId;
 	@AuditedField
+	@Indexed
 	private HedgingPositionTypeConst type = HedgingPositionTypeConst.INI;
 	@AuditedField
+	@Indexed
 	private HedgingPositionStatusConst status;
 	@AuditedField
+	@Indexed
 	private Date valueDate;
 	@AuditedField
 	private Date noticePeriodEndDate;
@@ -50,12 +56,13 @@ public class HedgingPosition extends BaseDTO {
 	private StorageActionEnum storageAction;
 
 	// Not Stored in database but use in Position processing order form 3
-	private double prxref;
+	// prices and quantity in FixedPointDecimal units
+	private long prxref;
 
-	private double basprx = 100;
+	private long basprx = 100 * FixedPointDecimal.ONE;
 	private Date daprx;
 	/******************** Input Valuation Data *********************/
-	private String quantity;
+	private long quantity = FixedPointDecimal.NULL;
 
 	/******************* Inpupt Front data ********************/
 	private Date datefinthe;
@@ -77,6 +84,40 @@ public class HedgingPosition extends BaseDTO {
 
 	}
 
+	/**
+	 * HedgingPosition copy constructor, much cheaper than a round trip through serialization.
+	 * Dates are copied, BigInteger, String and the enums are immutable and shared.
+	 *
+	 * @param source
+	 * 			the position to copy
+	 */
+	public HedgingPosition(HedgingPosition source) {
+		super(source);
+		this.transactionId = source.getTransactionId();
+		this.type = source.getType();
+		this.status = source.getStatus();
+		this.valueDate = copyOf(source.getValueDate());
+		this.noticePeriodEndDate = copyOf(source.getNoticePeriodEndDate());
+		this.combck = source.getCombck();
+		this.codetyptkt = source.getCodetyptkt();
+		this.transactionWay = source.getTransactionWay();
+		this.errorLevel = source.getErrorLevel();
+		this.hedgeMsg = source.getHedgeMsg();
+		this.storageAction = source.getStorageUpdate();
+		this.prxref = source.getPrxrefUnits();
+		this.basprx = source.getBasprxUnits();
+		this.daprx = copyOf(source.getDaprx());
+		this.quantity = source.getQuantityUnits();
+		this.datefinthe = copyOf(source.getDatefinthe());
+		this.codtyptra = source.getCodtyptra();
+		this.msgdev = source.getMsgdev();
+		this.msgerr = source.getMsgerr();
+		this.niverr = source.getNiverr();
+		this.msgusr = source.getMsgusr();
+		this.ikRtH = source.getIkRtH();
+		this.hedgingTransactionId = source.getHedgingTransactionId();
+	}
+
 	/**
 	 * @return the transactionId
 	 */
@@ -158,18 +199,46 @@ public class HedgingPosition extends BaseDTO {
 	}
 
 	public double getPrxref() {
-		return prxref;
+		return FixedPointDecimal.toDouble(getPrxrefUnits());
 	}
 
+	/**
+	 * @param prxref
+	 * 			rounded to {@link FixedPointDecimal#DECIMALS} decimals
+	 * @throws ArithmeticException
+	 * 			for NaN, the infinities and the prices out of {@link FixedPointDecimal#fromDouble(double)} range
+	 */
 	public void setPrxref(double prxref) {
+		setPrxrefUnits(FixedPointDecimal.fromDouble(prxref));
+	}
+
+	public long getPrxrefUnits() {
+		return prxref;
+	}
+
+	public void setPrxrefUnits(long prxref) {
 		this.prxref = prxref;
 	}
 
 	public double getBasprx() {
-		return basprx;
+		return FixedPointDecimal.toDouble(getBasprxUnits());
 	}
 
+	/**
+	 * @param basprx
+	 * 			rounded to {@link FixedPointDecimal#DECIMALS} decimals
+	 * @throws ArithmeticException
+	 * 			for NaN, the infinities and the prices out of {@link FixedPointDecimal#fromDouble(double)} range
+	 */
 	public void setBasprx(double basprx) {
+		setBasprxUnits(FixedPointDecimal.fromDouble(basprx));
+	}
+
+	public long getBasprxUnits() {
+		return basprx;
+	}
+
+	public void setBasprxUnits(long basprx) {
 		this.basprx = basprx;
 	}
 
@@ -182,11 +251,23 @@ public class HedgingPosition extends BaseDTO {
 	}
 
 	public String getQuantity() {
-		return quantity;
+		long units = getQuantityUnits();
+		return units == FixedPointDecimal.NULL ? null : FixedPointDecimal.toString(units);
 	}
 
 	// FIXME: Quantity should be an integer
 	public void setQuantity(String quantity) {
+		setQuantityUnits(quantity == null ? FixedPointDecimal.NULL : FixedPointDecimal.parse(quantity));
+	}
+
+	/**
+	 * @return the quantity in FixedPointDecimal units, FixedPointDecimal.NULL if none
+	 */
+	public long getQuantityUnits() {
+		return quantity;
+	}
+
+	public void setQuantityUnits(long quantity) {
 		this.quantity = quantity;
 	}
 
@@ -0,0 +1,346 @@
+package legacy.hedge;
+
+import legacy.FixedPointDecimal;
+import legacy.error.ErrorLevel;
+import legacy.persistence.StorageActionEnum;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ *     Title: legacy.hedge.HedgingPositionColumnStore
+ * </p>
+ * <p>
+ *     Book of positions held off heap, one direct buffer per field: ints, longs for the dates in epoch millis and
+ *     for the FixedPointDecimal prices and quantity, a byte for the enums and dictionary codes for the strings and BigIntegers (the
+ *     distinct values only are kept on heap). A {@link HedgingPositionView} reads and writes a row in place;
+ *     scans walk a column without touching the others. The last modification is not kept.
+ * </p>
+ * <p>
+ *     Not thread safe: one writer, or readers only.
+ * </p>
+ */
+public class HedgingPositionColumnStore {
+
+	public static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+	static final long NULL_DATE = Long.MIN_VALUE;
+	static final int NULL_INTEGER = Integer.MIN_VALUE;
+	static final int NULL_CODE = -1;
+
+	static final HedgingPositionTypeConst[] TYPES = HedgingPositionTypeConst.values();
+	static final HedgingPositionStatusConst[] STATUSES = HedgingPositionStatusConst.values();
+	static final ErrorLevel[] ERROR_LEVELS = ErrorLevel.values();
+	static final StorageActionEnum[] STORAGE_ACTIONS = StorageActionEnum.values();
+
+	private int capacity;
+	private int size;
+
+	final IntColumn id;
+	final IntColumn version;
+	final IntColumn updateVersion;
+	final LongColumn creDate;
+	final LongColumn updateDate;
+	final IntColumn transactionId;
+	final ByteColumn type;
+	final ByteColumn status;
+	final LongColumn valueDate;
+	final LongColumn noticePeriodEndDate;
+	final IntColumn combck;
+	final IntColumn codetyptkt;
+	final IntColumn transactionWay;
+	final ByteColumn errorLevel;
+	final IntColumn hedgeMsg;
+	final ByteColumn storageAction;
+	final LongColumn prxref;
+	final LongColumn basprx;
+	final LongColumn daprx;
+	final LongColumn quantity;
+	final LongColumn datefinthe;
+	final IntColumn codtyptra;
+	final IntColumn msgdev;
+	final IntColumn msgerr;
+	final IntColumn niverr;
+	final IntColumn msgusr;
+	final IntColumn ikRtH;
+	final IntColumn hedgingTransactionId;
+
+	final Dictionary<String> strings = new Dictionary<String>();
+	final Dictionary<BigInteger> numbers = new Dictionary<BigInteger>();
+
+	public HedgingPositionColumnStore() {
+		this(DEFAULT_INITIAL_CAPACITY);
+	}
+
+	public HedgingPositionColumnStore(int initialCapacity) {
+		capacity = Math.max(initialCapacity, 1);
+		id = new IntColumn(capacity);
+		version = new IntColumn(capacity);
+		updateVersion = new IntColumn(capacity);
+		creDate = new LongColumn(capacity);
+		updateDate = new LongColumn(capacity);
+		transactionId = new IntColumn(capacity);
+		type = new ByteColumn(capacity);
+		status = new ByteColumn(capacity);
+		valueDate = new LongColumn(capacity);
+		noticePeriodEndDate = new LongColumn(capacity);
+		combck = new IntColumn(capacity);
+		codetyptkt = new IntColumn(capacity);
+		transactionWay = new IntColumn(capacity);
+		errorLevel = new ByteColumn(capacity);
+		hedgeMsg = new IntColumn(capacity);
+		storageAction = new ByteColumn(capacity);
+		prxref = new LongColumn(capacity);
+		basprx = new LongColumn(capacity);
+		daprx = new LongColumn(capacity);
+		quantity = new LongColumn(capacity);
+		datefinthe = new LongColumn(capacity);
+		codtyptra = new IntColumn(capacity);
+		msgdev = new IntColumn(capacity);
+		msgerr = new IntColumn(capacity);
+		niverr = new IntColumn(capacity);
+		msgusr = new IntColumn(capacity);
+		ikRtH = new IntColumn(capacity);
+		hedgingTransactionId = new IntColumn(capacity);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * append a copy of the position
+	 *
+	 * @return its row
+	 */
+	public int add(HedgingPosition hp) {
+		if (size == capacity) {
+			grow();
+		}
+		int row = size++;
+		set(row, hp);
+		return row;
+	}
+
+	/**
+	 * overwrite the row with the position
+	 */
+	public void set(int row, HedgingPosition hp) {
+		checkRow(row);
+		id.set(row, hp.getId());
+		version.set(row, hp.getVersion());
+		updateVersion.set(row, hp.getUpdateVersion());
+		creDate.set(row, toMillis(hp.getCreDate()));
+		updateDate.set(row, toMillis(hp.getUpdateDate()));
+		transactionId.set(row, hp.getTransactionId());
+		type.set(row, encode(hp.getType()));
+		status.set(row, encode(hp.getStatus()));
+		valueDate.set(row, toMillis(hp.getValueDate()));
+		noticePeriodEndDate.set(row, toMillis(hp.getNoticePeriodEndDate()));
+		combck.set(row, strings.encode(hp.getCombck()));
+		codetyptkt.set(row, hp.getCodetyptkt());
+		transactionWay.set(row, strings.encode(hp.getTransactionWay()));
+		errorLevel.set(row, encode(hp.getErrorLevel()));
+		hedgeMsg.set(row, strings.encode(hp.getHedgeMsg()));
+		storageAction.set(row, encode(hp.getStorageUpdate()));
+		prxref.set(row, hp.getPrxrefUnits());
+		basprx.set(row, hp.getBasprxUnits());
+		daprx.set(row, toMillis(hp.getDaprx()));
+		quantity.set(row, hp.getQuantityUnits());
+		datefinthe.set(row, toMillis(hp.getDatefinthe()));
+		codtyptra.set(row, numbers.encode(hp.getCodtyptra()));
+		msgdev.set(row, strings.encode(hp.getMsgdev()));
+		msgerr.set(row, strings.encode(hp.getMsgerr()));
+		Integer level = hp.getNiverr();
+		niverr.set(row, level == null ? NULL_INTEGER : level);
+		msgusr.set(row, strings.encode(hp.getMsgusr()));
+		ikRtH.set(row, strings.encode(hp.getIkRtH()));
+		hedgingTransactionId.set(row, strings.encode(hp.getHedgingTransactionId()));
+	}
+
+	/**
+	 * @return a cursor on the first row, move it with {@link HedgingPositionView#moveTo(int)} and reuse it for the whole book
+	 */
+	public HedgingPositionView view() {
+		return new HedgingPositionView(this);
+	}
+
+	/**
+	 * @return the number of positions per status, indexed by ordinal
+	 */
+	public int[] countByStatus() {
+		int[] counts = new int[STATUSES.length];
+		for (int row = 0; row < size; row++) {
+			byte code = status.get(row);
+			if (code != 0) {
+				counts[code - 1]++;
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * @return the sum of the reference prices of the positions in that status
+	 */
+	public double sumPrxref(HedgingPositionStatusConst inStatus) {
+		byte code = (byte) (inStatus.ordinal() + 1);
+		long sum = 0;
+		for (int row = 0; row < size; row++) {
+			if (status.get(row) == code) {
+				sum += prxref.get(row);
+			}
+		}
+		return FixedPointDecimal.toDouble(sum);
+	}
+
+	/**
+	 * @return the rows whose value date is between from, included, and to, excluded
+	 */
+	public int[] findByValueDate(Date from, Date to) {
+		long start = from.getTime();
+		long end = to.getTime();
+		int[] rows = new int[16];
+		int found = 0;
+		for (int row = 0; row < size; row++) {
+			long date = valueDate.get(row);
+			if (date != NULL_DATE && date >= start && date < end) {
+				if (found == rows.length) {
+					int[] more = new int[rows.length * 2];
+					System.arraycopy(rows, 0, more, 0, found);
+					rows = more;
+				}
+				rows[found++] = row;
+			}
+		}
+		int[] result = new int[found];
+		System.arraycopy(rows, 0, result, 0, found);
+		return result;
+	}
+
+	void checkRow(int row) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+		}
+	}
+
+	private void grow() {
+		capacity *= 2;
+		for (Column column : new Column[]{id, version, updateVersion, creDate, updateDate, transactionId, type,
+				status, valueDate, noticePeriodEndDate, combck, codetyptkt, transactionWay, errorLevel, hedgeMsg,
+				storageAction, prxref, basprx, daprx, quantity, datefinthe, codtyptra, msgdev, msgerr, niverr, msgusr,
+				ikRtH, hedgingTransactionId}) {
+			column.grow(capacity);
+		}
+	}
+
+	static Date toDate(long millis) {
+		return millis == NULL_DATE ? null : new Date(millis);
+	}
+
+	static long toMillis(Date date) {
+		return date == null ? NULL_DATE : date.getTime();
+	}
+
+	static byte encode(Enum<?> value) {
+		return value == null ? 0 : (byte) (value.ordinal() + 1);
+	}
+
+	static <E extends Enum<E>> E decode(byte code, E[] values) {
+		return code == 0 ? null : values[code - 1];
+	}
+
+	private abstract static class Column {
+		private final int width;
+		ByteBuffer buffer;
+
+		private Column(int width, int capacity) {
+			this.width = width;
+			this.buffer = ByteBuffer.allocateDirect(width * capacity).order(ByteOrder.nativeOrder());
+		}
+
+		private void grow(int capacity) {
+			ByteBuffer bigger = ByteBuffer.allocateDirect(width * capacity).order(ByteOrder.nativeOrder());
+			buffer.clear();
+			bigger.put(buffer);
+			buffer = bigger;
+		}
+	}
+
+	static final class ByteColumn extends Column {
+		private ByteColumn(int capacity) {
+			super(1, capacity);
+		}
+
+		byte get(int row) {
+			return buffer.get(row);
+		}
+
+		void set(int row, byte value) {
+			buffer.put(row, value);
+		}
+	}
+
+	static final class IntColumn extends Column {
+		private IntColumn(int capacity) {
+			super(4, capacity);
+		}
+
+		int get(int row) {
+			return buffer.getInt(row << 2);
+		}
+
+		void set(int row, int value) {
+			buffer.putInt(row << 2, value);
+		}
+	}
+
+	static final class LongColumn extends Column {
+		private LongColumn(int capacity) {
+			super(8, capacity);
+		}
+
+		long get(int row) {
+			return buffer.getLong(row << 3);
+		}
+
+		void set(int row, long value) {
+			buffer.putLong(row << 3, value);
+		}
+	}
+
+	/**
+	 * distinct values on heap, the columns hold their codes
+	 */
+	static final class Dictionary<V> {
+		private final Map<V, Integer> codes = new HashMap<V, Integer>();
+		private final List<V> values = new ArrayList<V>();
+
+		int encode(V value) {
+			if (value == null) {
+				return NULL_CODE;
+			}
+			Integer code = codes.get(value);
+			if (code == null) {
+				code = values.size();
+				values.add(value);
+				codes.put(value, code);
+			}
+			return code;
+		}
+
+		V decode(int code) {
+			return code == NULL_CODE ? null : values.get(code);
+		}
+
+		int size() {
+			return values.size();
+		}
+	}
+}
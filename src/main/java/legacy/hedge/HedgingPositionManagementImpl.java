@@ -1,92 +1,326 @@
 package legacy.hedge;
 
 import legacy.DateTimeUtils;
+import legacy.FixedPointDecimal;
+import legacy.hedge.HedgingPositionMetrics.Stage;
 import legacy.dto.Modif;
 import legacy.security.User;
 import legacy.error.ARPSystemException;
 import legacy.error.CheckResult;
-import legacy.dto.Book;
+import legacy.error.ErrorLevel;
 import legacy.security.UserSessionsManager;
 import legacy.service.*;
 import legacy.dto.Transaction;
 import legacy.persistence.StorageActionEnum;
-import org.apache.commons.lang3.SerializationUtils;
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 
 public class HedgingPositionManagementImpl implements IHedgingPositionManagement {
 
-	private static int MAX_DECIMALS = 4;
+	private static int MAX_DECIMALS = FixedPointDecimal.DECIMALS;
 	private static Logger LOGGER = Logger.getLogger(HedgingPositionManagementImpl.class.getName());
+	/**
+	 * Default number of positions processed at the same time by a batch
+	 */
+	public static final int DEFAULT_BATCH_THREADS = 16;
+	private static final String INIT_EVENT = "initHedgingPosition";
 	private ITransactionManagerService transactionManagerService = getTransactionManagerService();
+	private ListeningExecutorService executor;
+	private ListeningExecutorService lookupExecutor;
+	private volatile BookRegistry bookRegistry;
+	private volatile HedgingPositionMetrics metrics = HedgingPositionMetrics.getInstance();
+
+	public HedgingPositionManagementImpl() {
+
+	}
+
+	/**
+	 * @param executor
+	 * 			the executor running the positions of a batch and the stages of the async sends
+	 */
+	public HedgingPositionManagementImpl(ExecutorService executor) {
+		setExecutor(executor);
+	}
 
     public ITransactionManagerService getTransactionManagerService() {
         return DataAccessService.getTransactionManagerService();
     }
 
+	public synchronized ListeningExecutorService getExecutor() {
+		if (executor == null) {
+			executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(DEFAULT_BATCH_THREADS,
+					new ThreadFactoryBuilder().setNameFormat("hedging-position-%d").setDaemon(true).build()));
+		}
+		return executor;
+	}
+
+	public synchronized void setExecutor(ExecutorService executor) {
+		this.executor = executor == null ? null : MoreExecutors.listeningDecorator(executor);
+	}
+
+	/**
+	 * the lookups of a position wait for each other, they run apart from the positions so that a full batch
+	 * cannot starve them
+	 */
+	public synchronized ListeningExecutorService getLookupExecutor() {
+		if (lookupExecutor == null) {
+			lookupExecutor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool(
+					new ThreadFactoryBuilder().setNameFormat("hedging-lookup-%d").setDaemon(true).build()));
+		}
+		return lookupExecutor;
+	}
+
+	/**
+	 * @param lookupExecutor
+	 * 			the executor running the remote lookups of the actions, a same thread executor runs them one
+	 * 			after another
+	 */
+	public synchronized void setLookupExecutor(ExecutorService lookupExecutor) {
+		this.lookupExecutor = lookupExecutor == null ? null : MoreExecutors.listeningDecorator(lookupExecutor);
+	}
+
+	public HedgingPositionMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @param metrics
+	 * 			where the latencies of the stages and the errors are recorded
+	 */
+	public void setMetrics(HedgingPositionMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public List<CheckResult<HedgingPosition>> initAndSendHedgingPositions(Collection<HedgingPosition> hps) throws ARPSystemException {
+		// the user session is thread bound, hand it over to the workers
+		final User user = UserSessionsManager.getInstance().getCurrentUser();
+		List<Callable<CheckResult<HedgingPosition>>> tasks = new ArrayList<Callable<CheckResult<HedgingPosition>>>(hps.size());
+		for (final HedgingPosition hp : hps) {
+			tasks.add(new Callable<CheckResult<HedgingPosition>>() {
+				@Override
+				public CheckResult<HedgingPosition> call() {
+					UserSessionsManager sessions = UserSessionsManager.getInstance();
+					User previous = sessions.getCurrentUser();
+					sessions.login(user);
+					try {
+						return initAndSendHedgingPosition(hp);
+					} finally {
+						sessions.login(previous);
+					}
+				}
+			});
+		}
+		List<Future<CheckResult<HedgingPosition>>> futures;
+		try {
+			futures = getExecutor().invokeAll(tasks);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ARPSystemException(e);
+		}
+		List<CheckResult<HedgingPosition>> results = new ArrayList<CheckResult<HedgingPosition>>(futures.size());
+		Iterator<HedgingPosition> positions = hps.iterator();
+		for (Future<CheckResult<HedgingPosition>> future : futures) {
+			HedgingPosition hp = positions.next();
+			try {
+				results.add(future.get());
+			} catch (ExecutionException e) {
+				LOGGER.log(Level.SEVERE, "TECHNICAL ERROR, cannot process HP " + hp.getId(), e.getCause());
+				CheckResult<HedgingPosition> result = new CheckResult<HedgingPosition>();
+				result.setCheckIsOk(false);
+				result.setResult(hp);
+				results.add(result);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ARPSystemException(e);
+			}
+		}
+		return results;
+	}
+
     @Override
 	public CheckResult<HedgingPosition> initAndSendHedgingPosition(HedgingPosition hp) throws ARPSystemException {
 		CheckResult<HedgingPosition> result = new CheckResult<HedgingPosition>();
+		long start = System.nanoTime();
 		try {
 			hp = initHedgingPosition(hp);
 		} catch (Exception e) {
-			String errorMsg = "TECHNICAL ERROR, cannot initialize HP to send";
-			LOGGER.log(Level.SEVERE, errorMsg, e);
-			String msg = hp.getErrorLevel().createHMsgFromError();
-			hp.setHedgeMsg(msg);
-			result.setCheckIsOk(false);
-			try {
-				updateHedgingPosition(hp);
-			} catch (ARPSystemException e1) {
-				LOGGER.log(Level.SEVERE, errorMsg, e1);
-			}
-			return result;
+			HedgingEvents.commit(HedgingEvent.Kind.INIT, INIT_EVENT, hp, HedgingEvents.outcomeOf(e), start);
+			return rejectHedgingPosition(hp, e);
 		}
+		HedgingEvents.commit(HedgingEvent.Kind.INIT, INIT_EVENT, hp, HedgingEvents.OK, start);
 		try {
 			result = hedgePositionBySendTo3rdParty(hp);
-			if(result.isCheckIsOk()) {
-				hp = result.getResult();
-				hp.setStatus(HedgingPositionStatusConst.HEDGED);
-				updateHedgingPosition(hp);
-			} else {
-				hp = result.getResult();
-				switch(hp.getErrorLevel()){
-					case FUNCTIONAL_ERROR:{
-						hp.setStatus(HedgingPositionStatusConst.REJECTED);
-						break;
-					}
-					case CONNECT_ERROR: {
-						hp.setStatus(HedgingPositionStatusConst.REJECTED);
-						break;
-					}
-					case BOOKING_MALFUNCTION: {
-						//TO DO
-						break;
-					}
-					default: {
-						break;
-					}
-				}
-				updateHedgingPosition(hp);
-			}
+			storeHedgingPosition(result);
 		} catch(ARPSystemException e) {
 			LOGGER.log(Level.SEVERE,e.getMessage(), e);
 		}
 		return result;
 	}
 
+	@Override
+	public ListenableFuture<CheckResult<HedgingPosition>> initAndSendHedgingPositionAsync(final HedgingPosition hp) {
+		final ListeningExecutorService executor = getExecutor();
+		final ITradingDataAccessService trading = getTradingDateAccessService();
+		final String userIni = getUser();
+		final SettableFuture<CheckResult<HedgingPosition>> result = SettableFuture.create();
+		final long start = System.nanoTime();
+
+		ListenableFuture<Transaction> transaction = executor.submit(new Callable<Transaction>() {
+			@Override
+			public Transaction call() {
+				return fetchTransaction(trading, hp);
+			}
+		});
+		ListenableFuture<HedgingPosition> initialized = Futures.transform(transaction, new Function<Transaction, HedgingPosition>() {
+			@Override
+			public HedgingPosition apply(Transaction input) {
+				return enrichHedgingPosition(hp, trading, input, userIni);
+			}
+		}, executor);
+		Futures.addCallback(initialized, new FutureCallback<HedgingPosition>() {
+			@Override
+			public void onSuccess(final HedgingPosition initializedHp) {
+				HedgingEvents.commit(HedgingEvent.Kind.INIT, INIT_EVENT, initializedHp, HedgingEvents.OK, start);
+				try {
+					ListenableFuture<CheckResult<HedgingPosition>> sent = executor.submit(new Callable<CheckResult<HedgingPosition>>() {
+						@Override
+						public CheckResult<HedgingPosition> call() {
+							return hedgePositionBySendTo3rdParty(initializedHp);
+						}
+					});
+					forward(Futures.transform(sent, new Function<CheckResult<HedgingPosition>, CheckResult<HedgingPosition>>() {
+						@Override
+						public CheckResult<HedgingPosition> apply(CheckResult<HedgingPosition> input) {
+							try {
+								storeHedgingPosition(input);
+							} catch(ARPSystemException e) {
+								LOGGER.log(Level.SEVERE,e.getMessage(), e);
+							}
+							return input;
+						}
+					}, executor), result);
+				} catch (RuntimeException e) {
+					result.setException(e);
+				}
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				HedgingEvents.commit(HedgingEvent.Kind.INIT, INIT_EVENT, hp, HedgingEvents.outcomeOf(t), start);
+				try {
+					result.set(rejectHedgingPosition(hp, t));
+				} catch (RuntimeException e) {
+					result.setException(e);
+				}
+			}
+		}, executor);
+		return result;
+	}
+
+	private static <V> void forward(ListenableFuture<V> from, final SettableFuture<V> to) {
+		Futures.addCallback(from, new FutureCallback<V>() {
+			@Override
+			public void onSuccess(V value) {
+				to.set(value);
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				to.setException(t);
+			}
+		});
+	}
+
+	/**
+	 * the HP could not be initialized, it is stored as is and reported KO, a FATAL_ERROR if it has no error level yet
+	 */
+	private CheckResult<HedgingPosition> rejectHedgingPosition(HedgingPosition hp, Throwable e) {
+		CheckResult<HedgingPosition> result = new CheckResult<HedgingPosition>();
+		String errorMsg = "TECHNICAL ERROR, cannot initialize HP to send";
+		LOGGER.log(Level.SEVERE, errorMsg, e);
+		if (hp.getErrorLevel() == null) {
+			hp.setErrorLevel(ErrorLevel.FATAL_ERROR);
+		}
+		metrics.recordError(hp.getErrorLevel());
+		String msg = hp.getErrorLevel().createHMsgFromError();
+		hp.setHedgeMsg(msg);
+		result.setCheckIsOk(false);
+		result.setResult(hp);
+		try {
+			updateHedgingPosition(hp);
+		} catch (ARPSystemException e1) {
+			LOGGER.log(Level.SEVERE, errorMsg, e1);
+		}
+		return result;
+	}
+
+	/**
+	 * set the HP status from the 3rd party answer and store it
+	 */
+	private void storeHedgingPosition(CheckResult<HedgingPosition> result) {
+		HedgingPosition hp = result.getResult();
+		if(result.isCheckIsOk()) {
+			hp.setStatus(HedgingPositionStatusConst.HEDGED);
+			updateHedgingPosition(hp);
+		} else {
+			metrics.recordError(hp.getErrorLevel());
+			switch(hp.getErrorLevel()){
+				case FUNCTIONAL_ERROR:{
+					hp.setStatus(HedgingPositionStatusConst.REJECTED);
+					break;
+				}
+				case CONNECT_ERROR: {
+					hp.setStatus(HedgingPositionStatusConst.REJECTED);
+					break;
+				}
+				case BOOKING_MALFUNCTION: {
+					//TO DO
+					break;
+				}
+				default: {
+					break;
+				}
+			}
+			updateHedgingPosition(hp);
+		}
+	}
+
 	public CheckResult<HedgingPosition> hedgePositionBySendTo3rdParty(HedgingPosition hp) {
 		if (LOGGER.isLoggable(Level.FINEST)) {
 			LOGGER.log(Level.FINEST,"Begin 3r party processing. stand by");
 		}
 		CheckResult<HedgingPosition> result;
-		result = hedgingPositionMgt(hp);
+		long start = System.nanoTime();
+		try {
+			result = hedgingPositionMgt(hp);
+		} finally {
+			metrics.record(Stage.TOWERING, hp.getType(), start);
+		}
 		if (LOGGER.isLoggable(Level.FINEST)) {
 			LOGGER.log(Level.FINEST,"3r party processing is now finished, thank you for your patience"); // t'es con michel
 		}
@@ -97,19 +331,31 @@ public class HedgingPositionManagementImpl implements IHedgingPositionManagement
         return HedgingPositionMgt.hedgingPositionMgt(hp);
     }
 
-    private HedgingPosition updateHedgingPosition(HedgingPosition hp) {
-		HedgingPosition hpUpdate = SerializationUtils.clone(hp);
+    HedgingPosition updateHedgingPosition(HedgingPosition hp) {
+		HedgingPosition hpUpdate = new HedgingPosition(hp);
 		try {
+			StorageActionEnum storageAction;
 			if (hp.getType().equals(HedgingPositionTypeConst.INI)) {
 				hpUpdate.setTransactionId(hp.getTransactionId());
 				Modif modif = new Modif();
 				modif.setCreDate(new Date());
 				hp.setLastModification(modif);
-				hp.setStorageUpdate(StorageActionEnum.CREATE);
-				hpUpdate = transactionManagerService.classStorageAction(hp);
+				storageAction = StorageActionEnum.CREATE;
 			} else {
-				hp.setStorageUpdate(StorageActionEnum.UPDATE);
+				storageAction = StorageActionEnum.UPDATE;
+			}
+			hp.setStorageUpdate(storageAction);
+			long start = System.nanoTime();
+			Exception failure = null;
+			try {
 				hpUpdate = transactionManagerService.classStorageAction(hp);
+			} catch (RuntimeException e) {
+				failure = e;
+				throw e;
+			} finally {
+				metrics.record(Stage.STORAGE, hp.getType(), start);
+				HedgingEvents.commit(HedgingEvent.Kind.STORAGE, storageAction.name(), hp,
+						HedgingEvents.outcomeOf(failure), start);
 			}
 		} catch(Exception e) {
 			LOGGER.log(Level.SEVERE, e.getMessage(),e);
@@ -120,14 +366,50 @@ public class HedgingPositionManagementImpl implements IHedgingPositionManagement
 
 	public HedgingPosition initHedgingPosition(HedgingPosition hp) {
 		ITradingDataAccessService trading = getTradingDateAccessService();
-        Transaction transaction = trading.getTransactionById(hp.getId());
+		Transaction transaction = fetchTransaction(trading, hp);
+		return enrichHedgingPosition(hp, trading, transaction, getUser());
+	}
+
+	Transaction fetchTransaction(ITradingDataAccessService trading, HedgingPosition hp) {
+		// the remote calls report for this position
+		HedgingPosition previous = HedgingEvents.setCurrentPosition(hp);
+		try {
+			Transaction transaction;
+			long start = System.nanoTime();
+			try {
+				transaction = trading.getTransactionById(hp.getId());
+			} finally {
+				metrics.record(Stage.TRANSACTION, hp.getType(), start);
+			}
 
-		long dps = trading.computeDPSOnTheGrid(transaction.getOuterEdge());
+			start = System.nanoTime();
+			try {
+				long dps = trading.computeDPSOnTheGrid(transaction.getOuterEdge());
+			} finally {
+				metrics.record(Stage.DPS, hp.getType(), start);
+			}
+			return transaction;
+		} finally {
+			HedgingEvents.setCurrentPosition(previous);
+		}
+	}
 
-        String userIni = getUser();
+	HedgingPosition enrichHedgingPosition(HedgingPosition hp, ITradingDataAccessService trading, Transaction transaction, String userIni) {
 		hp.setIkRtH(userIni);
         ActionParameter actionParameter = new ActionParameter(hp, trading, transaction);
-		switch (hp.getType()) {
+		HedgingPosition previous = HedgingEvents.setCurrentPosition(hp);
+		long start = System.nanoTime();
+		try {
+			invokeAction(actionParameter);
+		} finally {
+			metrics.record(Stage.ACTION, hp.getType(), start);
+			HedgingEvents.setCurrentPosition(previous);
+		}
+		return hp;
+ 	}
+
+	private void invokeAction(ActionParameter actionParameter) {
+		switch (actionParameter.getHp().getType()) {
 			case INI: {
                 new IniAction(actionParameter).invoke();
                 break;
@@ -142,12 +424,10 @@ public class HedgingPositionManagementImpl implements IHedgingPositionManagement
                 new CancelPositionAction(actionParameter).invoke();
                 break;
 		}
-
-		return hp;
- 	}
+	}
 
     private Date findTransactionDate(final HedgingPosition hp, final Transaction transaction) {
-        Date valueDate = new Date();
+        Date valueDate;
         try {
             valueDate = hp.getValueDate();
         } catch(Exception e) {
@@ -156,18 +436,60 @@ public class HedgingPositionManagementImpl implements IHedgingPositionManagement
         return valueDate;
     }
 
+	/**
+	 * start a remote lookup for the position on the lookup executor
+	 */
+	private <V> ListenableFuture<V> lookup(final HedgingPosition hp, final Callable<V> call) {
+		return getLookupExecutor().submit(new Callable<V>() {
+			@Override
+			public V call() throws Exception {
+				HedgingPosition previous = HedgingEvents.setCurrentPosition(hp);
+				try {
+					return call.call();
+				} finally {
+					HedgingEvents.setCurrentPosition(previous);
+				}
+			}
+		});
+	}
+
+	/**
+	 * wait for a lookup, its failure is thrown as is
+	 */
+	private static <V> V join(Future<V> lookup) {
+		try {
+			return lookup.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new ARPSystemException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ARPSystemException(e);
+		}
+	}
+
     int computeBodCode(final Transaction transaction, final Integer stock) {
-        int bodCode;
-        if (stock == null) {
-            Book book = getDataAccessService().getBookByName(transaction.getBookName() + "-instock");
-            bodCode = Integer.parseInt(book.getPortfolioIdFromRank());
-        } else {
-            Book book = getDataAccessService().getBookByName(transaction.getBookName());
-            bodCode = book.getCode();
-        }
-        return bodCode;
+        return getBookRegistry().getBodCode(transaction.getBookName(), stock != null);
     }
 
+	/**
+	 * @return the registry plugged in, the one shared through the {@link ServiceRegistry} otherwise
+	 */
+	public BookRegistry getBookRegistry() {
+		BookRegistry registry = bookRegistry;
+		return registry != null ? registry : DataAccessService.getBookRegistry();
+	}
+
+	public void setBookRegistry(BookRegistry bookRegistry) {
+		this.bookRegistry = bookRegistry;
+	}
+
     public IAnalyticalService getDataAccessService() {
         return DataAccessService.getAnalyticalService();
     }
@@ -239,24 +561,55 @@ public class HedgingPositionManagementImpl implements IHedgingPositionManagement
         }
 
         public void invoke() {
-            long dId2 = trading.getOptionalIdFromTransaction(transaction);
-            String combck2 = dId2 + " " + transaction.getId() + " CONTROL: [" + getHedingPositionDataAccessService().getControl() + "]";
-
-            TradingOrder evt = getHedingPositionDataAccessService().getTrade(transaction.getId());
-            double fxprice = -1d;
-            double price = getHedingPositionDataAccessService().getPriceQuote(dId2, transaction);
+            // the lookups run together, the price quote waits for the optional id only
+            ListenableFuture<Integer> dId = lookup(hp, new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return trading.getOptionalIdFromTransaction(transaction);
+                }
+            });
+            ListenableFuture<String> control = lookup(hp, new Callable<String>() {
+                @Override
+                public String call() {
+                    return getHedingPositionDataAccessService().getControl();
+                }
+            });
+            ListenableFuture<TradingOrder> trade = lookup(hp, new Callable<TradingOrder>() {
+                @Override
+                public TradingOrder call() {
+                    return getHedingPositionDataAccessService().getTrade(transaction.getId());
+                }
+            });
+            ListenableFuture<Long> priceQuote = Futures.transform(dId, new AsyncFunction<Integer, Long>() {
+                @Override
+                public ListenableFuture<Long> apply(final Integer dId2) {
+                    return lookup(hp, new Callable<Long>() {
+                        @Override
+                        public Long call() {
+                            return getHedingPositionDataAccessService().getPriceQuote(dId2, transaction);
+                        }
+                    });
+                }
+            });
+
+            long dId2 = join(dId);
+            String combck2 = dId2 + " " + transaction.getId() + " CONTROL: [" + join(control) + "]";
+
+            TradingOrder evt = join(trade);
+            long fxprice = -FixedPointDecimal.ONE;
+            long price = FixedPointDecimal.fromLong(join(priceQuote));
             if (evt !=null ){
-                price = evt.getPrice().getPrice();
-                fxprice = evt.getPrice().getFxPrice();
+                price = evt.getPrice().getPriceUnits();
+                fxprice = evt.getPrice().getFxPriceUnits();
             }
             if (price > 0) {
-                price = price * fxprice;
+                price = FixedPointDecimal.multiply(price, fxprice);
             }
             /*********************************** INPUT DEAL DATA *********************/
-            hp.setBasprx(price / 100);
-            hp.setPrxref(price);
+            hp.setBasprxUnits(FixedPointDecimal.divide(price, FixedPointDecimal.HUNDRED));
+            hp.setPrxrefUnits(price);
             hp.setCodetyptkt(42);
-            hp.setQuantity(String.valueOf(evt.getPrice().getQuantity()));
+            hp.setQuantityUnits(evt.getPrice().getQuantityUnits());
             /*********************************** INPUT EVENT DATA *********************/
             Date issueDate = transaction.getIssueDate();
             Date tradeDate = transaction.getTradeDate();
@@ -303,22 +656,55 @@ public class HedgingPositionManagementImpl implements IHedgingPositionManagement
         }
 
         public void invoke() {
-            long dId = trading.getOptionalIdFromTransaction(transaction);
-            String combck = dId + " " + transaction.getId() + " CONTROL: [" + getHedingPositionDataAccessService().getControl() + "]";
-
-            String transactionWay = new TransactionWrapper(transaction).getWay();
-
-            Integer stock = getDataAccessService().getRetrieveStockByActiveGK(transaction.getId(), transactionWay);
-            TradingOrder evt = getHedingPositionDataAccessService().getTrade(transaction.getId());
-
-            int bodCode = computeBodCode(transaction, stock);
+            final String transactionWay = new TransactionWrapper(transaction).getWay();
+
+            // the lookups run together, the BOD code waits for the stock only
+            ListenableFuture<Integer> dId = lookup(hp, new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return trading.getOptionalIdFromTransaction(transaction);
+                }
+            });
+            ListenableFuture<String> control = lookup(hp, new Callable<String>() {
+                @Override
+                public String call() {
+                    return getHedingPositionDataAccessService().getControl();
+                }
+            });
+            ListenableFuture<Integer> stock = lookup(hp, new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return getDataAccessService().getRetrieveStockByActiveGK(transaction.getId(), transactionWay);
+                }
+            });
+            ListenableFuture<TradingOrder> trade = lookup(hp, new Callable<TradingOrder>() {
+                @Override
+                public TradingOrder call() {
+                    return getHedingPositionDataAccessService().getTrade(transaction.getId());
+                }
+            });
+            ListenableFuture<Integer> bodCodeLookup = Futures.transform(stock, new AsyncFunction<Integer, Integer>() {
+                @Override
+                public ListenableFuture<Integer> apply(final Integer stock) {
+                    return lookup(hp, new Callable<Integer>() {
+                        @Override
+                        public Integer call() {
+                            return computeBodCode(transaction, stock);
+                        }
+                    });
+                }
+            });
+
+            String combck = join(dId) + " " + transaction.getId() + " CONTROL: [" + join(control) + "]";
+            TradingOrder evt = join(trade);
+            int bodCode = join(bodCodeLookup);
             /*********************************** INPUT DEAL DATA *********************/
             hp.setTransactionWay(transactionWay);
             hp.setCodetyptkt(34);
             hp.setCodtyptra(BigInteger.valueOf(bodCode));
-            hp.setQuantity(String.valueOf(evt.getPrice().getQuantity()));
-            hp.setBasprx(evt.getPrice().getFxPrice() / 100);
-            hp.setPrxref(evt.getPrice().getFxPrice());
+            hp.setQuantityUnits(evt.getPrice().getQuantityUnits());
+            hp.setBasprxUnits(FixedPointDecimal.divide(evt.getPrice().getFxPriceUnits(), FixedPointDecimal.HUNDRED));
+            hp.setPrxrefUnits(evt.getPrice().getFxPriceUnits());
             hp.setCombck(combck);
             /*********************************** INPUT EVENT DATA *********************/
             hp.setTransactionId(transaction.getId());
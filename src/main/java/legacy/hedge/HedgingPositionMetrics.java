@@ -0,0 +1,147 @@
+package legacy.hedge;
+
+import legacy.LatencyHistogram;
+import legacy.error.ARPSystemException;
+import legacy.error.ErrorLevel;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ *     Title: legacy.hedge.HedgingPositionMetrics
+ * </p>
+ * <p>
+ *     Latency of each stage of a position, by position type, and count of the positions failed by error level.
+ *     Always on: a recording is two clock reads and a few atomic increments. Positions without a type are counted
+ *     apart, under the type "NONE".
+ * </p>
+ */
+public class HedgingPositionMetrics {
+
+	public enum Stage {
+		/** getTransactionById */
+		TRANSACTION,
+		/** computeDPSOnTheGrid */
+		DPS,
+		/** the invoke() of the position type's action */
+		ACTION,
+		/** the Towering send */
+		TOWERING,
+		/** classStorageAction, until the position is durable: the wait for the group commit under write-behind */
+		STORAGE
+	}
+
+	public static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+	private static final HedgingPositionTypeConst[] TYPES = HedgingPositionTypeConst.values();
+	private static final HedgingPositionMetrics metrics = new HedgingPositionMetrics();
+
+	public static HedgingPositionMetrics getInstance() {
+		return metrics;
+	}
+
+	// one more type for the positions without one
+	private final LatencyHistogram[][] histograms = new LatencyHistogram[Stage.values().length][TYPES.length + 1];
+	private final AtomicLongArray errors = new AtomicLongArray(ErrorLevel.values().length);
+
+	public HedgingPositionMetrics() {
+		for (LatencyHistogram[] byType : histograms) {
+			for (int i = 0; i < byType.length; i++) {
+				byType[i] = new LatencyHistogram();
+			}
+		}
+	}
+
+	/**
+	 * @param startNanos
+	 * 			the {@link System#nanoTime()} when the stage started
+	 */
+	public void record(Stage stage, HedgingPositionTypeConst type, long startNanos) {
+		getHistogram(stage, type).record(System.nanoTime() - startNanos);
+	}
+
+	public void recordError(ErrorLevel errorLevel) {
+		if (errorLevel != null) {
+			errors.incrementAndGet(errorLevel.ordinal());
+		}
+	}
+
+	/**
+	 * @param type
+	 * 			null for the positions without type
+	 */
+	public LatencyHistogram getHistogram(Stage stage, HedgingPositionTypeConst type) {
+		return histograms[stage.ordinal()][type == null ? TYPES.length : type.ordinal()];
+	}
+
+	/**
+	 * @return the latency in nanoseconds
+	 */
+	public long getValueAtPercentile(Stage stage, HedgingPositionTypeConst type, double percentile) {
+		return getHistogram(stage, type).getValueAtPercentile(percentile);
+	}
+
+	public long getErrorCount(ErrorLevel errorLevel) {
+		return errors.get(errorLevel.ordinal());
+	}
+
+	public void reset() {
+		for (LatencyHistogram[] byType : histograms) {
+			for (LatencyHistogram histogram : byType) {
+				histogram.reset();
+			}
+		}
+		for (int i = 0; i < errors.length(); i++) {
+			errors.set(i, 0);
+		}
+	}
+
+	/**
+	 * one line per stage and type that was recorded, then one per error level, latencies in nanoseconds
+	 */
+	public void writeTo(Writer writer) throws IOException {
+		StringBuilder line = new StringBuilder("# stage type count");
+		for (double percentile : PERCENTILES) {
+			line.append(" p").append(percentile);
+		}
+		writer.write(line.append(" max\n").toString());
+		for (Stage stage : Stage.values()) {
+			for (int i = 0; i <= TYPES.length; i++) {
+				LatencyHistogram histogram = histograms[stage.ordinal()][i];
+				if (histogram.getTotalCount() == 0) {
+					continue;
+				}
+				line.setLength(0);
+				line.append(stage).append(' ').append(i < TYPES.length ? TYPES[i].name() : "NONE")
+						.append(' ').append(histogram.getTotalCount());
+				for (double percentile : PERCENTILES) {
+					line.append(' ').append(histogram.getValueAtPercentile(percentile));
+				}
+				writer.write(line.append(' ').append(histogram.getMaxValue()).append('\n').toString());
+			}
+		}
+		writer.write("# error count\n");
+		for (ErrorLevel errorLevel : ErrorLevel.values()) {
+			writer.write(errorLevel + " " + getErrorCount(errorLevel) + "\n");
+		}
+	}
+
+	public void export(File file) {
+		try {
+			Writer writer = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"));
+			try {
+				writeTo(writer);
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			throw new ARPSystemException(e);
+		}
+	}
+}
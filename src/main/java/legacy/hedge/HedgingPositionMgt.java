@@ -1,18 +1,60 @@
 package legacy.hedge;
 
+import legacy.error.ARPSystemException;
 import legacy.error.CheckResult;
 import legacy.dto.InputEvent;
-import legacy.service.ToweringXMLHTTPServiceClient;
-import org.apache.commons.lang3.SerializationUtils;
+import legacy.error.ErrorLevel;
+import legacy.service.ToweringEnvelopeBatcher;
+import legacy.service.ToweringTicketReceipt;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class HedgingPositionMgt {
 
+	private static Logger LOGGER = Logger.getLogger(HedgingPositionMgt.class.getName());
+
 	public static CheckResult<HedgingPosition> hedgingPositionMgt(HedgingPosition hp) {
-		CheckResult<HedgingPosition> result = new CheckResult<HedgingPosition>();
 		InputEvent event = new InputEvent(hp);
-		ToweringXMLHTTPServiceClient.sendTicketToTowering(event);
-		result.setCheckIsOk(true);
-		result.setResult(SerializationUtils.clone(hp));
+		ToweringTicketReceipt receipt;
+		try {
+			receipt = ToweringEnvelopeBatcher.getInstance().submitAndWait(event,
+					ToweringEnvelopeBatcher.DEFAULT_RECEIPT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			LOGGER.log(Level.SEVERE, "Towering envelope of HP " + hp.getId() + " was not sent", e.getCause());
+			receipt = null;
+		} catch (TimeoutException e) {
+			LOGGER.log(Level.SEVERE, "No Towering receipt for HP " + hp.getId() + " after "
+					+ ToweringEnvelopeBatcher.DEFAULT_RECEIPT_TIMEOUT_SECONDS + "s");
+			receipt = null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ARPSystemException(e);
+		}
+		return toCheckResult(hp, receipt);
+	}
+
+	/**
+	 * the position's share of the answer to the envelope it was sent in
+	 */
+	static CheckResult<HedgingPosition> toCheckResult(HedgingPosition hp, ToweringTicketReceipt receipt) {
+		CheckResult<HedgingPosition> result = new CheckResult<HedgingPosition>();
+		HedgingPosition hpResult = new HedgingPosition(hp);
+		if (receipt != null && receipt.isComplete()) {
+			result.setCheckIsOk(true);
+		} else {
+			if (receipt != null) {
+				LOGGER.log(Level.SEVERE, "Towering did not acknowledge chunks " + receipt.getFailures().keySet()
+						+ " of HP " + hp.getId());
+			}
+			hpResult.setErrorLevel(ErrorLevel.CONNECT_ERROR);
+			hpResult.setHedgeMsg(ErrorLevel.CONNECT_ERROR.createHMsgFromError());
+			result.setCheckIsOk(false);
+		}
+		result.setResult(hpResult);
 		return result;
 	}
 
@@ -0,0 +1,323 @@
+package legacy.hedge;
+
+import legacy.error.ErrorLevel;
+import legacy.persistence.StorageActionEnum;
+
+import java.math.BigInteger;
+import java.util.Date;
+
+import static legacy.hedge.HedgingPositionColumnStore.ERROR_LEVELS;
+import static legacy.hedge.HedgingPositionColumnStore.NULL_INTEGER;
+import static legacy.hedge.HedgingPositionColumnStore.STATUSES;
+import static legacy.hedge.HedgingPositionColumnStore.STORAGE_ACTIONS;
+import static legacy.hedge.HedgingPositionColumnStore.TYPES;
+import static legacy.hedge.HedgingPositionColumnStore.decode;
+import static legacy.hedge.HedgingPositionColumnStore.encode;
+import static legacy.hedge.HedgingPositionColumnStore.toDate;
+import static legacy.hedge.HedgingPositionColumnStore.toMillis;
+
+/**
+ * <p>
+ *     Title: legacy.hedge.HedgingPositionView
+ * </p>
+ * <p>
+ *     Cursor over a row of a {@link HedgingPositionColumnStore}: the getters and setters read and write the
+ *     columns in place, one view walks the whole book with {@link #moveTo(int)}. It is not a HedgingPosition,
+ *     moving it allocates nothing; the Date getters allocate, the millis getters do not.
+ *     {@link #toHedgingPosition()} copies the current row on heap, the last modification excepted.
+ * </p>
+ */
+public class HedgingPositionView {
+
+	private final HedgingPositionColumnStore store;
+	private int row;
+
+	HedgingPositionView(HedgingPositionColumnStore store) {
+		this.store = store;
+	}
+
+	public HedgingPositionView moveTo(int row) {
+		store.checkRow(row);
+		this.row = row;
+		return this;
+	}
+
+	public int getRow() {
+		return row;
+	}
+
+	/**
+	 * @return a copy of the current row on heap
+	 */
+	public HedgingPosition toHedgingPosition() {
+		HedgingPosition hp = new HedgingPosition();
+		hp.setId(getId());
+		hp.setVersion(getVersion());
+		hp.setUpdateVersion(getUpdateVersion());
+		hp.setCreDate(getCreDate());
+		hp.setUpdateDate(getUpdateDate());
+		hp.setTransactionId(getTransactionId());
+		hp.setType(getType());
+		hp.setStatus(getStatus());
+		hp.setValueDate(getValueDate());
+		hp.setNoticePeriodEndDate(getNoticePeriodEndDate());
+		hp.setCombck(getCombck());
+		hp.setCodetyptkt(getCodetyptkt());
+		hp.setTransactionWay(getTransactionWay());
+		hp.setErrorLevel(getErrorLevel());
+		hp.setHedgeMsg(getHedgeMsg());
+		hp.setStorageUpdate(getStorageUpdate());
+		hp.setPrxrefUnits(getPrxrefUnits());
+		hp.setBasprxUnits(getBasprxUnits());
+		hp.setDaprx(getDaprx());
+		hp.setQuantityUnits(getQuantityUnits());
+		hp.setDatefinthe(getDatefinthe());
+		hp.setCodtyptra(getCodtyptra());
+		hp.setMsgdev(getMsgdev());
+		hp.setMsgerr(getMsgerr());
+		hp.setNiverr(getNiverr());
+		hp.setMsgusr(getMsgusr());
+		hp.setIkRtH(getIkRtH());
+		hp.setHedgingTransactionId(getHedgingTransactionId());
+		return hp;
+	}
+
+	public int getId() {
+		return store.id.get(row);
+	}
+
+	public void setId(int id) {
+		store.id.set(row, id);
+	}
+
+	public int getVersion() {
+		return store.version.get(row);
+	}
+
+	public void setVersion(int version) {
+		store.version.set(row, version);
+	}
+
+	public int getUpdateVersion() {
+		return store.updateVersion.get(row);
+	}
+
+	public void setUpdateVersion(int updateVersion) {
+		store.updateVersion.set(row, updateVersion);
+	}
+
+	public Date getCreDate() {
+		return toDate(store.creDate.get(row));
+	}
+
+	public void setCreDate(Date creDate) {
+		store.creDate.set(row, toMillis(creDate));
+	}
+
+	public Date getUpdateDate() {
+		return toDate(store.updateDate.get(row));
+	}
+
+	public void setUpdateDate(Date updateDate) {
+		store.updateDate.set(row, toMillis(updateDate));
+	}
+
+	public int getTransactionId() {
+		return store.transactionId.get(row);
+	}
+
+	public void setTransactionId(int transactionId) {
+		store.transactionId.set(row, transactionId);
+	}
+
+	public HedgingPositionTypeConst getType() {
+		return decode(store.type.get(row), TYPES);
+	}
+
+	public void setType(HedgingPositionTypeConst type) {
+		store.type.set(row, encode(type));
+	}
+
+	public HedgingPositionStatusConst getStatus() {
+		return decode(store.status.get(row), STATUSES);
+	}
+
+	public void setStatus(HedgingPositionStatusConst status) {
+		store.status.set(row, encode(status));
+	}
+
+	public Date getValueDate() {
+		return toDate(store.valueDate.get(row));
+	}
+
+	/**
+	 * @return the value date in epoch millis, Long.MIN_VALUE if none
+	 */
+	public long getValueDateMillis() {
+		return store.valueDate.get(row);
+	}
+
+	public void setValueDate(Date valueDate) {
+		store.valueDate.set(row, toMillis(valueDate));
+	}
+
+	public Date getNoticePeriodEndDate() {
+		return toDate(store.noticePeriodEndDate.get(row));
+	}
+
+	/**
+	 * @return the notice period end date in epoch millis, Long.MIN_VALUE if none
+	 */
+	public long getNoticePeriodEndDateMillis() {
+		return store.noticePeriodEndDate.get(row);
+	}
+
+	public void setNoticePeriodEndDate(Date noticePeriodEndDate) {
+		store.noticePeriodEndDate.set(row, toMillis(noticePeriodEndDate));
+	}
+
+	public String getCombck() {
+		return store.strings.decode(store.combck.get(row));
+	}
+
+	public void setCombck(String combck) {
+		store.combck.set(row, store.strings.encode(combck));
+	}
+
+	public BigInteger getCodtyptra() {
+		return store.numbers.decode(store.codtyptra.get(row));
+	}
+
+	public void setCodtyptra(BigInteger codtyptra) {
+		store.codtyptra.set(row, store.numbers.encode(codtyptra));
+	}
+
+	public int getCodetyptkt() {
+		return store.codetyptkt.get(row);
+	}
+
+	public void setCodetyptkt(int codetyptkt) {
+		store.codetyptkt.set(row, codetyptkt);
+	}
+
+	public long getPrxrefUnits() {
+		return store.prxref.get(row);
+	}
+
+	public void setPrxrefUnits(long prxref) {
+		store.prxref.set(row, prxref);
+	}
+
+	public long getBasprxUnits() {
+		return store.basprx.get(row);
+	}
+
+	public void setBasprxUnits(long basprx) {
+		store.basprx.set(row, basprx);
+	}
+
+	public Date getDaprx() {
+		return toDate(store.daprx.get(row));
+	}
+
+	public void setDaprx(Date daprx) {
+		store.daprx.set(row, toMillis(daprx));
+	}
+
+	public long getQuantityUnits() {
+		return store.quantity.get(row);
+	}
+
+	public void setQuantityUnits(long quantity) {
+		store.quantity.set(row, quantity);
+	}
+
+	public String getTransactionWay() {
+		return store.strings.decode(store.transactionWay.get(row));
+	}
+
+	public void setTransactionWay(String transactionWay) {
+		store.transactionWay.set(row, store.strings.encode(transactionWay));
+	}
+
+	public String getMsgdev() {
+		return store.strings.decode(store.msgdev.get(row));
+	}
+
+	public void setMsgdev(String msgdev) {
+		store.msgdev.set(row, store.strings.encode(msgdev));
+	}
+
+	public String getMsgerr() {
+		return store.strings.decode(store.msgerr.get(row));
+	}
+
+	public void setMsgerr(String msgerr) {
+		store.msgerr.set(row, store.strings.encode(msgerr));
+	}
+
+	public Integer getNiverr() {
+		int niverr = store.niverr.get(row);
+		return niverr == NULL_INTEGER ? null : Integer.valueOf(niverr);
+	}
+
+	public void setNiverr(Integer niverr) {
+		store.niverr.set(row, niverr == null ? NULL_INTEGER : niverr);
+	}
+
+	public String getMsgusr() {
+		return store.strings.decode(store.msgusr.get(row));
+	}
+
+	public void setMsgusr(String msgusr) {
+		store.msgusr.set(row, store.strings.encode(msgusr));
+	}
+
+	public ErrorLevel getErrorLevel() {
+		return decode(store.errorLevel.get(row), ERROR_LEVELS);
+	}
+
+	public void setErrorLevel(ErrorLevel errorLevel) {
+		store.errorLevel.set(row, encode(errorLevel));
+	}
+
+	public String getHedgeMsg() {
+		return store.strings.decode(store.hedgeMsg.get(row));
+	}
+
+	public void setHedgeMsg(String hedgeMsg) {
+		store.hedgeMsg.set(row, store.strings.encode(hedgeMsg));
+	}
+
+	public Date getDatefinthe() {
+		return toDate(store.datefinthe.get(row));
+	}
+
+	public void setDatefinthe(Date datefinthe) {
+		store.datefinthe.set(row, toMillis(datefinthe));
+	}
+
+	public StorageActionEnum getStorageUpdate() {
+		return decode(store.storageAction.get(row), STORAGE_ACTIONS);
+	}
+
+	public void setStorageUpdate(StorageActionEnum storageAction) {
+		store.storageAction.set(row, encode(storageAction));
+	}
+
+	public String getIkRtH() {
+		return store.strings.decode(store.ikRtH.get(row));
+	}
+
+	public void setIkRtH(String ikRtH) {
+		store.ikRtH.set(row, store.strings.encode(ikRtH));
+	}
+
+	public String getHedgingTransactionId() {
+		return store.strings.decode(store.hedgingTransactionId.get(row));
+	}
+
+	public void setHedgingTransactionId(String hedgingTransactionId) {
+		store.hedgingTransactionId.set(row, store.strings.encode(hedgingTransactionId));
+	}
+}
@@ -2,6 +2,10 @@ package legacy.hedge;
 
 import legacy.error.ARPSystemException;
 import legacy.error.CheckResult;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * <p>
@@ -15,4 +19,23 @@ public interface IHedgingPositionManagement {
 
 	CheckResult<HedgingPosition> initAndSendHedgingPosition(HedgingPosition hedgingPosition) throws ARPSystemException;
 
+	/**
+	 * Non blocking version of {@link #initAndSendHedgingPosition(HedgingPosition)}: the transaction fetch, the
+	 * enrichment, the Towering send and the storage are chained on the management executor.
+	 *
+	 * @param hedgingPosition
+	 * 			the position to process
+	 * @return the result, completed once the position is stored
+	 */
+	ListenableFuture<CheckResult<HedgingPosition>> initAndSendHedgingPositionAsync(HedgingPosition hedgingPosition);
+
+	/**
+	 * Init and send every position of the burst concurrently.
+	 *
+	 * @param hedgingPositions
+	 * 			the positions to process
+	 * @return one result per position, in the iteration order of hedgingPositions
+	 */
+	List<CheckResult<HedgingPosition>> initAndSendHedgingPositions(Collection<HedgingPosition> hedgingPositions) throws ARPSystemException;
+
 }
@@ -0,0 +1,132 @@
+package legacy.persistence;
+
+import legacy.error.ARPSystemException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>
+ *     Title: legacy.persistence.AuditDiffer
+ * </p>
+ * <p>
+ *     Before/after diff of the fields marked {@link AuditedField}. The audited fields of a class, its superclasses
+ *     included, and their public getters are looked up once; the values are read through the getters, so an
+ *     overriding getter is honoured, with method handles and without reflection.
+ *     A snapshot holds the audited values only, in declaration order, dates copied.
+ * </p>
+ */
+public final class AuditDiffer {
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	private static final ClassValue<AuditedFields> AUDITED_FIELDS = new ClassValue<AuditedFields>() {
+		@Override
+		protected AuditedFields computeValue(Class<?> type) {
+			return new AuditedFields(type);
+		}
+	};
+
+	private AuditDiffer() {
+	}
+
+	/**
+	 * @return the names of the audited fields of the class, in snapshot order
+	 */
+	public static List<String> getAuditedFieldNames(Class<?> type) {
+		return Collections.unmodifiableList(Arrays.asList(AUDITED_FIELDS.get(type).names));
+	}
+
+	public static Object[] snapshot(Object dto) {
+		MethodHandle[] getters = AUDITED_FIELDS.get(dto.getClass()).getters;
+		Object[] values = new Object[getters.length];
+		try {
+			for (int i = 0; i < getters.length; i++) {
+				Object value = (Object) getters[i].invokeExact(dto);
+				values[i] = value instanceof Date ? new Date(((Date) value).getTime()) : value;
+			}
+		} catch (Throwable e) {
+			throw new ARPSystemException(e);
+		}
+		return values;
+	}
+
+	/**
+	 * @param before
+	 * 			snapshot of the stored state, null when the object was never stored
+	 * @param after
+	 * 			snapshot of the state being stored
+	 * @return the audited fields whose value changed, empty if none did
+	 */
+	public static List<FieldChange> diff(Class<?> type, Object[] before, Object[] after) {
+		String[] names = AUDITED_FIELDS.get(type).names;
+		List<FieldChange> changes = null;
+		for (int i = 0; i < names.length; i++) {
+			Object previous = before == null ? null : before[i];
+			if (before == null || !Objects.equals(previous, after[i])) {
+				if (changes == null) {
+					changes = new ArrayList<FieldChange>(names.length);
+				}
+				changes.add(new FieldChange(names[i], previous, after[i]));
+			}
+		}
+		return changes == null ? Collections.<FieldChange>emptyList() : changes;
+	}
+
+	public static List<FieldChange> diff(Object before, Object after) {
+		return diff(after.getClass(), before == null ? null : snapshot(before), snapshot(after));
+	}
+
+	private static class AuditedFields {
+		private final String[] names;
+		private final MethodHandle[] getters;
+
+		private AuditedFields(Class<?> type) {
+			List<Field> fields = new ArrayList<Field>();
+			List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+			for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+				hierarchy.add(0, c);
+			}
+			for (Class<?> c : hierarchy) {
+				for (Field field : c.getDeclaredFields()) {
+					if (field.isAnnotationPresent(AuditedField.class)) {
+						fields.add(field);
+					}
+				}
+			}
+			names = new String[fields.size()];
+			getters = new MethodHandle[fields.size()];
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			for (int i = 0; i < names.length; i++) {
+				names[i] = fields.get(i).getName();
+				try {
+					getters[i] = lookup.unreflect(getter(type, fields.get(i))).asType(GETTER_TYPE);
+				} catch (IllegalAccessException e) {
+					throw new ARPSystemException(e);
+				}
+			}
+		}
+
+		private static Method getter(Class<?> type, Field field) {
+			String property = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+			try {
+				return type.getMethod("get" + property);
+			} catch (NoSuchMethodException e) {
+				try {
+					return type.getMethod("is" + property);
+				} catch (NoSuchMethodException e1) {
+					throw new ARPSystemException("No public getter for the audited field " + type.getName() + "." + field.getName());
+				}
+			}
+		}
+	}
+}
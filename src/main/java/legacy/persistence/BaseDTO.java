@@ -40,6 +40,16 @@ public class BaseDTO extends ObjectDTO {
 		this.id = id;
 	}
 
+	/**
+	 * legacy.persistence.BaseDTO copy constructor
+	 *
+	 * @param source
+	 */
+	protected BaseDTO(BaseDTO source) {
+		super(source);
+		this.id = source.getId();
+	}
+
 	/**
 	 *
 	 * @return the id
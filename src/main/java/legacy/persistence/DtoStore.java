@@ -0,0 +1,266 @@
+package legacy.persistence;
+
+import legacy.error.ARPSystemException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * <p>
+ *     Title: legacy.persistence.DtoStore
+ * </p>
+ * <p>
+ *     In-memory store of DTOs keyed by their {@link PrimaryKey} fields (several fields make a composite key,
+ *     in {@link PrimaryKey#index()} order) with a sorted secondary index per {@link Indexed} field.
+ *     The store holds its own copies, made with the copy constructor of the DTO, and hands out copies.
+ * </p>
+ * <p>
+ *     Reads take no lock: writes are serialized and the indexes are concurrent maps of concurrent key sets.
+ *     A read through an index checks the value of the DTO it found, so it never returns a DTO that no longer
+ *     matches.
+ *     Null values are not indexed.
+ * </p>
+ */
+public class DtoStore<T extends BaseDTO> {
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	private final Class<T> type;
+	private final MethodHandle copyConstructor;
+	private final MethodHandle[] primaryKey;
+	private final Map<String, SecondaryIndex> indexes = new HashMap<String, SecondaryIndex>();
+	private final ConcurrentHashMap<Object, T> dtos = new ConcurrentHashMap<Object, T>();
+
+	public DtoStore(Class<T> type) {
+		this.type = type;
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		try {
+			copyConstructor = lookup.findConstructor(type, MethodType.methodType(void.class, type))
+					.asType(MethodType.methodType(Object.class, Object.class));
+		} catch (ReflectiveOperationException e) {
+			throw new ARPSystemException("No copy constructor in " + type.getName());
+		}
+		TreeMap<Integer, MethodHandle> keys = new TreeMap<Integer, MethodHandle>();
+		for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				PrimaryKey key = field.getAnnotation(PrimaryKey.class);
+				if (key != null) {
+					keys.put(key.index(), getter(lookup, field));
+				}
+				if (field.isAnnotationPresent(Indexed.class)) {
+					indexes.put(field.getName(), new SecondaryIndex(getter(lookup, field)));
+				}
+			}
+		}
+		if (keys.isEmpty()) {
+			throw new ARPSystemException("No primary key in " + type.getName());
+		}
+		primaryKey = keys.values().toArray(new MethodHandle[keys.size()]);
+	}
+
+	private static MethodHandle getter(MethodHandles.Lookup lookup, Field field) {
+		field.setAccessible(true);
+		try {
+			return lookup.unreflectGetter(field).asType(GETTER_TYPE);
+		} catch (IllegalAccessException e) {
+			throw new ARPSystemException(e);
+		}
+	}
+
+	/**
+	 * @return the names of the indexed fields
+	 */
+	public Set<String> getIndexedFields() {
+		return indexes.keySet();
+	}
+
+	/**
+	 * store a copy of the DTO, replacing the one with the same primary key
+	 *
+	 * @return the DTO replaced, null if none
+	 */
+	public synchronized T put(T dto) {
+		T copy = copy(dto);
+		Object key = primaryKeyOf(copy);
+		T previous = dtos.put(key, copy);
+		for (SecondaryIndex index : indexes.values()) {
+			index.update(key, previous, copy);
+		}
+		return previous == null ? null : copy(previous);
+	}
+
+	/**
+	 * @return the DTO removed, null if none
+	 */
+	public synchronized T remove(Object primaryKey) {
+		T previous = dtos.remove(primaryKey);
+		if (previous != null) {
+			for (SecondaryIndex index : indexes.values()) {
+				index.update(primaryKey, previous, null);
+			}
+		}
+		return previous == null ? null : copy(previous);
+	}
+
+	/**
+	 * @param primaryKey
+	 * 			the value of the primary key field, or the list of the values of a composite key
+	 */
+	public T get(Object primaryKey) {
+		T dto = dtos.get(primaryKey);
+		return dto == null ? null : copy(dto);
+	}
+
+	public int size() {
+		return dtos.size();
+	}
+
+	public List<T> getAll() {
+		return copies(dtos.values());
+	}
+
+	/**
+	 * @return the DTOs whose indexed field equals value
+	 */
+	public List<T> findBy(String field, Object value) {
+		SecondaryIndex index = index(field);
+		Set<Object> keys = index.entries.get(value);
+		if (keys == null) {
+			return new ArrayList<T>(0);
+		}
+		List<T> found = new ArrayList<T>(keys.size());
+		for (Object key : keys) {
+			T dto = dtos.get(key);
+			if (dto != null && Objects.equals(index.valueOf(dto), value)) {
+				found.add(copy(dto));
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * @return the DTOs whose indexed field is between from, included, and to, excluded, in field order
+	 */
+	public List<T> findRange(String field, Comparable<?> from, Comparable<?> to) {
+		SecondaryIndex index = index(field);
+		List<T> found = new ArrayList<T>();
+		for (Map.Entry<Object, Set<Object>> entry : index.entries.subMap(from, true, to, false).entrySet()) {
+			for (Object key : entry.getValue()) {
+				T dto = dtos.get(key);
+				if (dto != null && Objects.equals(index.valueOf(dto), entry.getKey())) {
+					found.add(copy(dto));
+				}
+			}
+		}
+		return found;
+	}
+
+	private SecondaryIndex index(String field) {
+		SecondaryIndex index = indexes.get(field);
+		if (index == null) {
+			throw new ARPSystemException(field + " is not an indexed field of " + type.getName());
+		}
+		return index;
+	}
+
+	private Object primaryKeyOf(T dto) {
+		if (primaryKey.length == 1) {
+			return invoke(primaryKey[0], dto);
+		}
+		Object[] values = new Object[primaryKey.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = invoke(primaryKey[i], dto);
+		}
+		return Arrays.asList(values);
+	}
+
+	private T copy(T dto) {
+		return type.cast(invoke(copyConstructor, dto));
+	}
+
+	private List<T> copies(Collection<T> dtos) {
+		List<T> copies = new ArrayList<T>(dtos.size());
+		for (T dto : dtos) {
+			copies.add(copy(dto));
+		}
+		return copies;
+	}
+
+	private static Object invoke(MethodHandle handle, Object dto) {
+		try {
+			return (Object) handle.invokeExact(dto);
+		} catch (Throwable e) {
+			throw new ARPSystemException(e);
+		}
+	}
+
+	/**
+	 * indexed value to the primary keys of the DTOs holding it
+	 */
+	private static class SecondaryIndex {
+
+		private static final Comparator<Object> NATURAL_ORDER = new Comparator<Object>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public int compare(Object o1, Object o2) {
+				return ((Comparable<Object>) o1).compareTo(o2);
+			}
+		};
+
+		private final MethodHandle getter;
+		private final ConcurrentNavigableMap<Object, Set<Object>> entries =
+				new ConcurrentSkipListMap<Object, Set<Object>>(NATURAL_ORDER);
+
+		private SecondaryIndex(MethodHandle getter) {
+			this.getter = getter;
+		}
+
+		private Object valueOf(Object dto) {
+			return invoke(getter, dto);
+		}
+
+		/**
+		 * called by the store's writer only
+		 */
+		private void update(Object key, Object previous, Object current) {
+			Object before = previous == null ? null : valueOf(previous);
+			Object after = current == null ? null : valueOf(current);
+			if (Objects.equals(before, after)) {
+				return;
+			}
+			if (before != null) {
+				Set<Object> keys = entries.get(before);
+				if (keys != null) {
+					keys.remove(key);
+					if (keys.isEmpty()) {
+						entries.remove(before);
+					}
+				}
+			}
+			if (after != null) {
+				Set<Object> keys = entries.get(after);
+				if (keys == null) {
+					keys = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+					entries.put(after, keys);
+				}
+				keys.add(key);
+			}
+		}
+	}
+}
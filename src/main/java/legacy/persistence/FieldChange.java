@@ -0,0 +1,61 @@
+package legacy.persistence;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * <p>
+ *     Title: legacy.persistence.FieldChange
+ * </p>
+ * <p>
+ *     Value of an {@link AuditedField} before and after a storage action.
+ * </p>
+ */
+public class FieldChange implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String fieldName;
+	private final Object before;
+	private final Object after;
+
+	public FieldChange(String fieldName, Object before, Object after) {
+		this.fieldName = fieldName;
+		this.before = before;
+		this.after = after;
+	}
+
+	public String getFieldName() {
+		return fieldName;
+	}
+
+	public Object getBefore() {
+		return before;
+	}
+
+	public Object getAfter() {
+		return after;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof FieldChange)) {
+			return false;
+		}
+		FieldChange that = (FieldChange) o;
+		return fieldName.equals(that.fieldName) && Objects.equals(before, that.before) && Objects.equals(after, that.after);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(fieldName, before, after);
+	}
+
+	@Override
+	public String toString() {
+		return fieldName + ": " + before + " -> " + after;
+	}
+}
@@ -0,0 +1,19 @@
+package legacy.persistence;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ *     Title: legacy.persistence.Indexed
+ * </p>
+ * <p>
+ *     the field is a secondary index of the {@link DtoStore}, its type must be Comparable
+ * </p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Indexed {
+}
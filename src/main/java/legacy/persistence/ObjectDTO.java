@@ -57,6 +57,29 @@ public abstract class ObjectDTO  implements Serializable {
 		this.creDate = new Date();
 	}
 
+	/**
+	 * copy constructor: the dates and the last modification are copied, the other fields are immutable; the fields
+	 * are read directly, a subclass such as {@link Modif} overriding their getters
+	 *
+	 * @param source
+	 * 			the object to copy
+	 */
+	protected ObjectDTO(ObjectDTO source) {
+		this.updateDate = copyOf(source.updateDate);
+		this.creDate = copyOf(source.creDate);
+		Modif modif = source.lastModificatin;
+		this.lastModificatin = modif == null ? null : new Modif(modif);
+		this.version = source.version;
+		this.updateVersion = source.updateVersion;
+	}
+
+	/**
+	 * @return a copy of the date, which is mutable, or null
+	 */
+	protected static Date copyOf(Date date) {
+		return date == null ? null : new Date(date.getTime());
+	}
+
 	public Date getCreDate() {
 		return creDate;
 	}
@@ -70,7 +93,7 @@ public abstract class ObjectDTO  implements Serializable {
 	}
 
 	public void setLastModification(Modif lastModification) {
-		this.lastModificatin = lastModificatin;
+		this.lastModificatin = lastModification;
 	}
 
 	public int getVersion() {
@@ -6,6 +6,15 @@ public class User extends BaseDTO {
 	private String name;
 	private String password;
 
+	public User() {
+	}
+
+	public User(User source) {
+		super(source);
+		this.name = source.name;
+		this.password = source.password;
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -0,0 +1,149 @@
+package legacy.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import legacy.dto.Book;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ *     Title: legacy.service.BookRegistry
+ * </p>
+ * <p>
+ *     Caches the books of an {@link IAnalyticalService} together with the BOD code of each book name, with and
+ *     without stock, so that resolving a BOD code is a single hash lookup once the book is known:
+ *     <ul>
+ *         <li>with stock, the code of the book</li>
+ *         <li>without stock, the portfolio id by rank of the "-instock" book</li>
+ *     </ul>
+ * </p>
+ * <p>
+ *     Built by the {@link ServiceRegistry}, it warms up the configured books when started. Nothing publishes the
+ *     changes of the books, so {@link #onBookChanged(Book)} and {@link #invalidate(String)} are for whoever learns
+ *     of one, and each book and BOD code is loaded again after a TTL ({@link #DEFAULT_TTL_MINUTES} minutes by
+ *     default) to bound how stale it can get.
+ * </p>
+ */
+public class BookRegistry implements Lifecycle {
+
+	public static final String IN_STOCK_SUFFIX = "-instock";
+	public static final long DEFAULT_TTL_MINUTES = 60;
+
+	private static Logger LOGGER = Logger.getLogger(BookRegistry.class.getName());
+
+	private final IAnalyticalService analyticalService;
+	private final List<String> warmUpBookNames;
+	private final Cache<String, Book> books;
+	private final Cache<String, Integer> bodCodesWithStock;
+	private final Cache<String, Integer> bodCodesWithoutStock;
+
+	public BookRegistry(IAnalyticalService analyticalService) {
+		this(analyticalService, Collections.<String>emptyList(), DEFAULT_TTL_MINUTES, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * @param warmUpBookNames
+	 * 			books loaded on {@link #start()}
+	 * @param ttl
+	 * 			how long a book or a BOD code is kept before being loaded again
+	 */
+	public BookRegistry(IAnalyticalService analyticalService, Collection<String> warmUpBookNames, long ttl, TimeUnit unit) {
+		this.analyticalService = analyticalService;
+		this.warmUpBookNames = new ArrayList<String>(warmUpBookNames);
+		this.books = CacheBuilder.newBuilder().expireAfterWrite(ttl, unit).build();
+		this.bodCodesWithStock = CacheBuilder.newBuilder().expireAfterWrite(ttl, unit).build();
+		this.bodCodesWithoutStock = CacheBuilder.newBuilder().expireAfterWrite(ttl, unit).build();
+	}
+
+	@Override
+	public void start() {
+		warmUp(warmUpBookNames);
+	}
+
+	@Override
+	public void stop() {
+		invalidateAll();
+	}
+
+	public Book getBookByName(String bookName) {
+		Book book = books.getIfPresent(bookName);
+		if (book == null) {
+			book = analyticalService.getBookByName(bookName);
+			if (book != null) {
+				books.put(bookName, book);
+			}
+		}
+		return book;
+	}
+
+	/**
+	 * @param bookName
+	 * 			name of the transaction's book
+	 * @param stock
+	 * 			whether the transaction has stock
+	 */
+	public int getBodCode(String bookName, boolean stock) {
+		Cache<String, Integer> bodCodes = stock ? bodCodesWithStock : bodCodesWithoutStock;
+		Integer bodCode = bodCodes.getIfPresent(bookName);
+		if (bodCode == null) {
+			bodCode = computeBodCode(bookName, stock);
+			bodCodes.put(bookName, bodCode);
+		}
+		return bodCode;
+	}
+
+	private int computeBodCode(String bookName, boolean stock) {
+		if (stock) {
+			return getBookByName(bookName).getCode();
+		}
+		return Integer.parseInt(getBookByName(bookName + IN_STOCK_SUFFIX).getPortfolioIdFromRank());
+	}
+
+	/**
+	 * load the books and both BOD codes of each name, the books that cannot be resolved are skipped
+	 */
+	public void warmUp(Collection<String> bookNames) {
+		for (String bookName : bookNames) {
+			try {
+				getBodCode(bookName, true);
+				getBodCode(bookName, false);
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.WARNING, "Cannot warm up book " + bookName, e);
+			}
+		}
+	}
+
+	/**
+	 * the book changed: forget it, its "-instock" variant and their BOD codes
+	 */
+	public void invalidate(String bookName) {
+		String baseName = bookName.endsWith(IN_STOCK_SUFFIX)
+				? bookName.substring(0, bookName.length() - IN_STOCK_SUFFIX.length())
+				: bookName;
+		books.invalidate(baseName);
+		books.invalidate(baseName + IN_STOCK_SUFFIX);
+		bodCodesWithStock.invalidate(baseName);
+		bodCodesWithoutStock.invalidate(baseName);
+	}
+
+	/**
+	 * the book changed and its new version is known: replace it, the BOD codes are computed again on next use
+	 */
+	public void onBookChanged(Book book) {
+		invalidate(book.getName());
+		books.put(book.getName(), book);
+	}
+
+	public void invalidateAll() {
+		books.invalidateAll();
+		bodCodesWithStock.invalidateAll();
+		bodCodesWithoutStock.invalidateAll();
+	}
+}
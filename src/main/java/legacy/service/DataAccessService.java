@@ -1,10 +1,8 @@
 package legacy.service;
 
-import legacy.service.implementation.AnalyticalService;
-import legacy.service.implementation.HedgingPositionDataAccessServiceImpl;
-import legacy.service.implementation.TradingDataAccessServiceImpl;
-import legacy.service.implementation.TransactionManagerService;
-
+/**
+ * static access to the services of the {@link ServiceRegistry}: each service is built once and shared
+ */
 public class DataAccessService {
 
 	static {
@@ -20,18 +18,22 @@ public class DataAccessService {
 	 * @return
 	 */
 	public static ITransactionManagerService getTransactionManagerService() {
-		return new TransactionManagerService();
+		return ServiceRegistry.getInstance().get(ITransactionManagerService.class);
 	}
 
 	public static ITradingDataAccessService getTradingDataAccessService() {
-		return new TradingDataAccessServiceImpl();
+		return ServiceRegistry.getInstance().get(ITradingDataAccessService.class);
 	}
 
 	public static IHedgingPositionDataAccessService getHedgingPositionDataAccessService() {
-		return new HedgingPositionDataAccessServiceImpl();
+		return ServiceRegistry.getInstance().get(IHedgingPositionDataAccessService.class);
 	}
 
 	public static IAnalyticalService getAnalyticalService() {
-		return new AnalyticalService();
+		return ServiceRegistry.getInstance().get(IAnalyticalService.class);
+	}
+
+	public static BookRegistry getBookRegistry() {
+		return ServiceRegistry.getInstance().get(BookRegistry.class);
 	}
 }
@@ -0,0 +1,251 @@
+package legacy.service;
+
+import legacy.FixedPointDecimal;
+import legacy.dto.InputEnvelope;
+import legacy.dto.InputEvent;
+import legacy.hedge.HedgingPosition;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * <p>
+ *     Title: legacy.service.HedgingPositionXmlWriter
+ * </p>
+ * <p>
+ *     Streams the Towering XML of hedging positions straight into a reusable {@link XmlOutputBuffer}, without
+ *     building a DOM or intermediate strings. Dates are written in UTC (ISO-8601 with milliseconds), prices with
+ *     {@link #PRICE_DECIMALS} decimals, null fields are left out. The bounds of the tickets of the last envelope
+ *     are kept for {@link #getTicketBounds()}.
+ * </p>
+ */
+public class HedgingPositionXmlWriter {
+
+	public static final int PRICE_DECIMALS = FixedPointDecimal.DECIMALS;
+	private static final long MILLIS_PER_DAY = 86400000L;
+
+	private static final byte[] XML_DECLARATION = XmlOutputBuffer.ascii("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+	private static final byte[] ENVELOPE_OPEN = XmlOutputBuffer.ascii("<envelope size=\"");
+	private static final byte[] ENVELOPE_CLOSE = XmlOutputBuffer.ascii("</envelope>");
+	private static final byte[] TICKET_OPEN = XmlOutputBuffer.ascii("<ticket id=\"");
+	private static final byte[] TICKET_CLOSE = XmlOutputBuffer.ascii("</ticket>");
+	private static final byte[] ATTRIBUTE_END = XmlOutputBuffer.ascii("\">");
+
+	private static final byte[] POSITION = XmlOutputBuffer.ascii("hedgingPosition");
+	private static final byte[] ID = XmlOutputBuffer.ascii("id");
+	private static final byte[] TRANSACTION_ID = XmlOutputBuffer.ascii("transactionId");
+	private static final byte[] TYPE = XmlOutputBuffer.ascii("type");
+	private static final byte[] STATUS = XmlOutputBuffer.ascii("status");
+	private static final byte[] TRANSACTION_WAY = XmlOutputBuffer.ascii("transactionWay");
+	private static final byte[] VALUE_DATE = XmlOutputBuffer.ascii("valueDate");
+	private static final byte[] NOTICE_PERIOD_END_DATE = XmlOutputBuffer.ascii("noticePeriodEndDate");
+	private static final byte[] COMBCK = XmlOutputBuffer.ascii("combck");
+	private static final byte[] CODETYPTKT = XmlOutputBuffer.ascii("codetyptkt");
+	private static final byte[] CODTYPTRA = XmlOutputBuffer.ascii("codtyptra");
+	private static final byte[] PRXREF = XmlOutputBuffer.ascii("prxref");
+	private static final byte[] BASPRX = XmlOutputBuffer.ascii("basprx");
+	private static final byte[] DAPRX = XmlOutputBuffer.ascii("daprx");
+	private static final byte[] QUANTITY = XmlOutputBuffer.ascii("quantity");
+	private static final byte[] DATEFINTHE = XmlOutputBuffer.ascii("datefinthe");
+	private static final byte[] CRE_DATE = XmlOutputBuffer.ascii("creDate");
+	private static final byte[] IK_RT_H = XmlOutputBuffer.ascii("ikRtH");
+	private static final byte[] HEDGING_TRANSACTION_ID = XmlOutputBuffer.ascii("hedgingTransactionId");
+
+	private final XmlOutputBuffer out;
+	private int[] ticketBounds = new int[16];
+	private int ticketCount;
+
+	public HedgingPositionXmlWriter() {
+		this(new XmlOutputBuffer(4096));
+	}
+
+	public HedgingPositionXmlWriter(XmlOutputBuffer out) {
+		this.out = out;
+	}
+
+	public XmlOutputBuffer getBuffer() {
+		return out;
+	}
+
+	/**
+	 * reset the buffer and write the whole envelope document
+	 */
+	public XmlOutputBuffer writeEnvelope(InputEnvelope envelope) {
+		out.reset();
+		out.append(XML_DECLARATION);
+		List<InputEvent> events = envelope.getEvents();
+		out.append(ENVELOPE_OPEN);
+		out.appendLong(events.size());
+		out.append(ATTRIBUTE_END);
+		ticketCount = events.size();
+		if (ticketBounds.length <= ticketCount) {
+			ticketBounds = new int[ticketCount + 1];
+		}
+		for (int i = 0; i < ticketCount; i++) {
+			InputEvent event = events.get(i);
+			ticketBounds[i] = out.size();
+			out.append(TICKET_OPEN);
+			out.appendLong(event.getId());
+			out.append(ATTRIBUTE_END);
+			writePosition(event.getPosition());
+			out.append(TICKET_CLOSE);
+		}
+		ticketBounds[ticketCount] = out.size();
+		out.append(ENVELOPE_CLOSE);
+		return out;
+	}
+
+	/**
+	 * @return the offset of the first byte of each ticket of the last envelope, then the offset past its last ticket
+	 */
+	public int[] getTicketBounds() {
+		return Arrays.copyOf(ticketBounds, ticketCount + 1);
+	}
+
+	public void writePosition(HedgingPosition hp) {
+		open(POSITION);
+		writeLong(ID, hp.getId());
+		writeLong(TRANSACTION_ID, hp.getTransactionId());
+		writeEnum(TYPE, hp.getType());
+		writeEnum(STATUS, hp.getStatus());
+		writeText(TRANSACTION_WAY, hp.getTransactionWay());
+		writeDate(VALUE_DATE, hp.getValueDate());
+		writeDate(NOTICE_PERIOD_END_DATE, hp.getNoticePeriodEndDate());
+		writeText(COMBCK, hp.getCombck());
+		writeLong(CODETYPTKT, hp.getCodetyptkt());
+		writeCode(CODTYPTRA, hp.getCodtyptra());
+		writePrice(PRXREF, hp.getPrxrefUnits());
+		writePrice(BASPRX, hp.getBasprxUnits());
+		writeDate(DAPRX, hp.getDaprx());
+		writeQuantity(QUANTITY, hp.getQuantityUnits());
+		writeDate(DATEFINTHE, hp.getDatefinthe());
+		writeDate(CRE_DATE, hp.getCreDate());
+		writeText(IK_RT_H, hp.getIkRtH());
+		writeText(HEDGING_TRANSACTION_ID, hp.getHedgingTransactionId());
+		close(POSITION);
+	}
+
+	private void open(byte[] tag) {
+		out.append((byte) '<');
+		out.append(tag);
+		out.append((byte) '>');
+	}
+
+	private void close(byte[] tag) {
+		out.append((byte) '<');
+		out.append((byte) '/');
+		out.append(tag);
+		out.append((byte) '>');
+	}
+
+	void writeLong(byte[] tag, long value) {
+		open(tag);
+		out.appendLong(value);
+		close(tag);
+	}
+
+	void writeEnum(byte[] tag, Enum<?> value) {
+		if (value != null) {
+			open(tag);
+			out.appendAscii(value.name());
+			close(tag);
+		}
+	}
+
+	void writeText(byte[] tag, String value) {
+		if (value != null) {
+			open(tag);
+			out.appendText(value);
+			close(tag);
+		}
+	}
+
+	/**
+	 * codes fitting a long are written without going through BigInteger.toString
+	 */
+	void writeCode(byte[] tag, BigInteger value) {
+		if (value != null) {
+			open(tag);
+			if (value.bitLength() < 64) {
+				out.appendLong(value.longValue());
+			} else {
+				out.appendAscii(value.toString());
+			}
+			close(tag);
+		}
+	}
+
+	/**
+	 * @param units
+	 * 			the price in FixedPointDecimal units, written with all its decimals
+	 */
+	void writePrice(byte[] tag, long units) {
+		open(tag);
+		out.appendDecimal(units, PRICE_DECIMALS);
+		close(tag);
+	}
+
+	/**
+	 * @param units
+	 * 			the quantity in FixedPointDecimal units, written like a double: "378.0"
+	 */
+	void writeQuantity(byte[] tag, long units) {
+		if (units != FixedPointDecimal.NULL) {
+			open(tag);
+			out.appendDecimal(units, 1);
+			close(tag);
+		}
+	}
+
+	/**
+	 * yyyy-MM-ddTHH:mm:ss.SSSZ in UTC
+	 */
+	void writeDate(byte[] tag, Date date) {
+		if (date != null) {
+			open(tag);
+			long millis = date.getTime();
+			long days = millis / MILLIS_PER_DAY;
+			long millisOfDay = millis % MILLIS_PER_DAY;
+			if (millisOfDay < 0) {
+				days--;
+				millisOfDay += MILLIS_PER_DAY;
+			}
+			// days to civil date, see http://howardhinnant.github.io/date_algorithms.html
+			long z = days + 719468;
+			long era = (z >= 0 ? z : z - 146096) / 146097;
+			long doe = z - era * 146097;
+			long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+			long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+			long mp = (5 * doy + 2) / 153;
+			long day = doy - (153 * mp + 2) / 5 + 1;
+			long month = mp < 10 ? mp + 3 : mp - 9;
+			long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+			if (year < 0) {
+				out.append((byte) '-');
+				year = -year;
+			}
+			if (year > 9999) {
+				out.appendLong(year);
+			} else {
+				out.appendPadded(year, 4);
+			}
+			out.append((byte) '-');
+			out.appendPadded(month, 2);
+			out.append((byte) '-');
+			out.appendPadded(day, 2);
+			out.append((byte) 'T');
+			out.appendPadded(millisOfDay / 3600000L, 2);
+			out.append((byte) ':');
+			out.appendPadded((millisOfDay / 60000L) % 60, 2);
+			out.append((byte) ':');
+			out.appendPadded((millisOfDay / 1000L) % 60, 2);
+			out.append((byte) '.');
+			out.appendPadded(millisOfDay % 1000L, 3);
+			out.append((byte) 'Z');
+			close(tag);
+		}
+	}
+}
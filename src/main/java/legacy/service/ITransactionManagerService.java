@@ -3,9 +3,18 @@ package legacy.service;
 import legacy.hedge.HedgingPosition;
 import legacy.persistence.ObjectDTO;
 
+import java.util.List;
+
 
 public interface ITransactionManagerService {
 
 	public <T extends ObjectDTO> T classStorageAction(HedgingPosition hp);
 
+	/**
+	 * store several positions in one round trip
+	 *
+	 * @return the stored positions, in the order of hps
+	 */
+	public List<HedgingPosition> classStorageActions(List<HedgingPosition> hps);
+
 }
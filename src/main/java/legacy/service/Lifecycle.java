@@ -0,0 +1,15 @@
+package legacy.service;
+
+/**
+ * <p>
+ *     Title: legacy.service.Lifecycle
+ * </p>
+ * <p>services holding threads, pools or connections, started and stopped by the {@link ServiceRegistry}</p>
+ */
+public interface Lifecycle {
+
+	void start();
+
+	void stop();
+
+}
@@ -0,0 +1,56 @@
+package legacy.service;
+
+import legacy.hedge.HedgingEvent;
+import legacy.hedge.HedgingEvents;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * <p>
+ *     Title: legacy.service.RemoteCallEvents
+ * </p>
+ * <p>
+ *     Wraps a remote service so that each call of one of its methods commits a
+ *     {@link HedgingEvent.Kind#REMOTE_CALL} event, for the position bound to the calling thread. The wrapper is
+ *     a {@link Lifecycle} when the service is one.
+ * </p>
+ */
+public final class RemoteCallEvents {
+
+	private RemoteCallEvents() {
+	}
+
+	public static <T> T wrap(final Class<T> type, final T service) {
+		Class<?>[] interfaces = service instanceof Lifecycle ? new Class<?>[] {type, Lifecycle.class} : new Class<?>[] {type};
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), interfaces, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if (!HedgingEvents.isEnabled() || method.getDeclaringClass() != type) {
+					return call(service, method, args);
+				}
+				long start = System.nanoTime();
+				Throwable failure = null;
+				try {
+					return call(service, method, args);
+				} catch (Throwable t) {
+					failure = t;
+					throw t;
+				} finally {
+					HedgingEvents.commit(HedgingEvent.Kind.REMOTE_CALL, method.getName(),
+							HedgingEvents.getCurrentPosition(), HedgingEvents.outcomeOf(failure), start);
+				}
+			}
+		}));
+	}
+
+	private static Object call(Object service, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(service, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
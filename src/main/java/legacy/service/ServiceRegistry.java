@@ -0,0 +1,233 @@
+package legacy.service;
+
+import legacy.error.ARPSystemException;
+import legacy.service.implementation.AnalyticalService;
+import legacy.service.implementation.AuditingTransactionManagerService;
+import legacy.service.implementation.CachingTradingDataAccessService;
+import legacy.service.implementation.HedgingPositionDataAccessServiceImpl;
+import legacy.service.implementation.HedgingPositionJournal;
+import legacy.service.implementation.JournalTransactionManagerService;
+import legacy.service.implementation.SingleFlightHedgingPositionDataAccessService;
+import legacy.service.implementation.SingleFlightTradingDataAccessService;
+import legacy.service.implementation.TradingDataAccessServiceImpl;
+import legacy.service.implementation.TradingSessionPool;
+import legacy.service.implementation.TransactionManagerService;
+import legacy.service.implementation.WriteBehindTransactionManagerService;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ *     Title: legacy.service.ServiceRegistry
+ * </p>
+ * <p>
+ *     Builds each service once, from the factory registered for its interface, and shares it between all the
+ *     threads. Services implementing {@link Lifecycle} are started when built and stopped, in reverse order, by
+ *     {@link #stop()}. Registering a factory replaces the implementation of an interface.
+ * </p>
+ */
+public class ServiceRegistry {
+
+	/**
+	 * directory of the journal the positions are stored in, nothing is persisted when not set
+	 */
+	public static final String JOURNAL_DIRECTORY_PROPERTY = "legacy.journal.dir";
+	/**
+	 * "true" to store the positions by group commits, see {@link WriteBehindTransactionManagerService}
+	 */
+	public static final String WRITE_BEHIND_PROPERTY = "legacy.storage.writeBehind";
+	/**
+	 * sessions kept open to the trading data center, {@link TradingSessionPool#DEFAULT_MAX_SIZE} when not set
+	 */
+	public static final String TRADING_SESSIONS_PROPERTY = "legacy.trading.sessions";
+	/**
+	 * milliseconds an unused trading session stays open, {@link TradingSessionPool#DEFAULT_IDLE_TIMEOUT_MILLIS}
+	 * when not set
+	 */
+	public static final String TRADING_SESSION_IDLE_TIMEOUT_PROPERTY = "legacy.trading.sessionIdleTimeoutMillis";
+	/**
+	 * milliseconds a call waits for a trading session when all are busy,
+	 * {@link TradingSessionPool#DEFAULT_BORROW_TIMEOUT_MILLIS} when not set
+	 */
+	public static final String TRADING_SESSION_BORROW_TIMEOUT_PROPERTY = "legacy.trading.sessionBorrowTimeoutMillis";
+	/**
+	 * comma separated names of the books the {@link BookRegistry} loads when started
+	 */
+	public static final String BOOKS_WARM_UP_PROPERTY = "legacy.books.warmUp";
+	/**
+	 * minutes a book is kept by the {@link BookRegistry}, {@link BookRegistry#DEFAULT_TTL_MINUTES} when not set
+	 */
+	public static final String BOOKS_TTL_PROPERTY = "legacy.books.ttlMinutes";
+
+	private static Logger LOGGER = Logger.getLogger(ServiceRegistry.class.getName());
+	private static final ServiceRegistry registry;
+
+	static {
+		registry = new ServiceRegistry();
+		registry.register(ITransactionManagerService.class, new Factory<ITransactionManagerService>() {
+			@Override
+			public ITransactionManagerService create(ServiceRegistry services) {
+				String directory = System.getProperty(JOURNAL_DIRECTORY_PROPERTY);
+				HedgingPositionJournal journal = directory == null ? null : new HedgingPositionJournal(new File(directory));
+				ITransactionManagerService storage = journal == null ? new TransactionManagerService()
+						: new JournalTransactionManagerService(journal);
+				if (Boolean.getBoolean(WRITE_BEHIND_PROPERTY)) {
+					storage = new WriteBehindTransactionManagerService(storage);
+				}
+				// the audit reads the states it no longer holds back from the journal
+				return new AuditingTransactionManagerService(storage, journal);
+			}
+		});
+		registry.register(ITradingDataAccessService.class, new Factory<ITradingDataAccessService>() {
+			@Override
+			public ITradingDataAccessService create(ServiceRegistry services) {
+				// the cache is optional, the single flight coalesces the remote calls with or without it; the
+				// events are committed by the calls that do reach the remote service only
+				ITradingDataAccessService remote = new SingleFlightTradingDataAccessService(
+						RemoteCallEvents.wrap(ITradingDataAccessService.class, new TradingDataAccessServiceImpl(
+								Integer.getInteger(TRADING_SESSIONS_PROPERTY, TradingSessionPool.DEFAULT_MAX_SIZE),
+								Long.getLong(TRADING_SESSION_IDLE_TIMEOUT_PROPERTY, TradingSessionPool.DEFAULT_IDLE_TIMEOUT_MILLIS),
+								Long.getLong(TRADING_SESSION_BORROW_TIMEOUT_PROPERTY, TradingSessionPool.DEFAULT_BORROW_TIMEOUT_MILLIS))));
+				return new CachingTradingDataAccessService(remote);
+			}
+		});
+		registry.register(IHedgingPositionDataAccessService.class, new Factory<IHedgingPositionDataAccessService>() {
+			@Override
+			public IHedgingPositionDataAccessService create(ServiceRegistry services) {
+				return new SingleFlightHedgingPositionDataAccessService(
+						RemoteCallEvents.wrap(IHedgingPositionDataAccessService.class, new HedgingPositionDataAccessServiceImpl()));
+			}
+		});
+		registry.register(IAnalyticalService.class, new Factory<IAnalyticalService>() {
+			@Override
+			public IAnalyticalService create(ServiceRegistry services) {
+				return RemoteCallEvents.wrap(IAnalyticalService.class, new AnalyticalService());
+			}
+		});
+		registry.register(BookRegistry.class, new Factory<BookRegistry>() {
+			@Override
+			public BookRegistry create(ServiceRegistry services) {
+				String bookNames = System.getProperty(BOOKS_WARM_UP_PROPERTY, "").trim();
+				return new BookRegistry(services.get(IAnalyticalService.class),
+						bookNames.isEmpty() ? Collections.<String>emptyList() : Arrays.asList(bookNames.split("\\s*,\\s*")),
+						Long.getLong(BOOKS_TTL_PROPERTY, BookRegistry.DEFAULT_TTL_MINUTES), TimeUnit.MINUTES);
+			}
+		});
+	}
+
+	/**
+	 * @return the registry behind {@link DataAccessService}
+	 */
+	public static ServiceRegistry getInstance() {
+		return registry;
+	}
+
+	public interface Factory<T> {
+		/**
+		 * @param services
+		 * 			the registry, to look up the services this one depends on
+		 */
+		T create(ServiceRegistry services);
+	}
+
+	private final Map<Class<?>, Factory<?>> factories = new ConcurrentHashMap<Class<?>, Factory<?>>();
+	private final Map<Class<?>, Object> services = new ConcurrentHashMap<Class<?>, Object>();
+	// creation order, stopped backwards
+	private final List<Class<?>> created = new ArrayList<Class<?>>();
+
+	/**
+	 * plug an implementation in, the service already built for this interface, if any, is stopped and dropped
+	 */
+	public <T> void register(Class<T> type, Factory<? extends T> factory) {
+		Object previous;
+		synchronized (this) {
+			factories.put(type, factory);
+			previous = services.remove(type);
+			created.remove(type);
+		}
+		if (previous != null) {
+			stop(type, previous);
+		}
+	}
+
+	public <T> void register(Class<T> type, final T service) {
+		register(type, new Factory<T>() {
+			@Override
+			public T create(ServiceRegistry services) {
+				return service;
+			}
+		});
+	}
+
+	public <T> T get(Class<T> type) {
+		Object service = services.get(type);
+		if (service == null) {
+			synchronized (this) {
+				service = services.get(type);
+				if (service == null) {
+					Factory<?> factory = factories.get(type);
+					if (factory == null) {
+						throw new ARPSystemException("No service registered for " + type.getName());
+					}
+					service = factory.create(this);
+					if (service instanceof Lifecycle) {
+						((Lifecycle) service).start();
+					}
+					services.put(type, service);
+					created.add(type);
+				}
+			}
+		}
+		return type.cast(service);
+	}
+
+	/**
+	 * build and start every registered service
+	 */
+	public void start() {
+		List<Class<?>> types;
+		synchronized (this) {
+			types = new ArrayList<Class<?>>(factories.keySet());
+		}
+		for (Class<?> type : types) {
+			get(type);
+		}
+	}
+
+	/**
+	 * stop the services in reverse creation order, they are built again on next use
+	 */
+	public void stop() {
+		List<Class<?>> types;
+		List<Object> stopped = new ArrayList<Object>();
+		synchronized (this) {
+			types = new ArrayList<Class<?>>(created);
+			for (Class<?> type : types) {
+				stopped.add(services.remove(type));
+			}
+			created.clear();
+		}
+		for (int i = types.size() - 1; i >= 0; i--) {
+			stop(types.get(i), stopped.get(i));
+		}
+	}
+
+	private void stop(Class<?> type, Object service) {
+		if (service instanceof Lifecycle) {
+			try {
+				((Lifecycle) service).stop();
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.SEVERE, "Cannot stop " + type.getName(), e);
+			}
+		}
+	}
+}
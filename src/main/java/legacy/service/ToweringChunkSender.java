@@ -0,0 +1,165 @@
+package legacy.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import legacy.dto.InputEnvelope;
+import legacy.error.ARPSystemException;
+import legacy.hedge.HedgingEvent;
+import legacy.hedge.HedgingEvents;
+import legacy.hedge.HedgingPosition;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ *     Title: legacy.service.ToweringChunkSender
+ * </p>
+ * <p>
+ *     Pipelined upload of the chunks of a ticket: up to maxChunksInFlight chunks are sent at the same time,
+ *     the next chunk goes out as soon as one is acknowledged.
+ * </p>
+ * <p>
+ *     The receipt is the checkpoint of the transfer: a failed transfer is retried up to maxAttempts times and
+ *     each retry only sends the chunks Towering did not acknowledge yet, from the first missing one.
+ * </p>
+ */
+public class ToweringChunkSender {
+
+	private static Logger LOGGER = Logger.getLogger(ToweringChunkSender.class.getName());
+	private static final ExecutorService CHUNK_EXECUTOR = Executors.newCachedThreadPool(
+			new ThreadFactoryBuilder().setNameFormat("towering-chunk-%d").setDaemon(true).build());
+
+	private final int maxChunksInFlight;
+	private final int maxAttempts;
+	private final ToweringChunkTransport transport;
+
+	public ToweringChunkSender(int maxChunksInFlight, ToweringChunkTransport transport) {
+		this(maxChunksInFlight, 1, transport);
+	}
+
+	public ToweringChunkSender(int maxChunksInFlight, int maxAttempts, ToweringChunkTransport transport) {
+		if (maxChunksInFlight < 1) {
+			throw new IllegalArgumentException("maxChunksInFlight must be at least 1: " + maxChunksInFlight);
+		}
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("maxAttempts must be at least 1: " + maxAttempts);
+		}
+		this.maxChunksInFlight = maxChunksInFlight;
+		this.maxAttempts = maxAttempts;
+		this.transport = transport;
+	}
+
+	public int getMaxChunksInFlight() {
+		return maxChunksInFlight;
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * Send every chunk of the payload and wait for all of them to be acknowledged, retrying the missing chunks
+	 * up to maxAttempts times.
+	 */
+	public ToweringReceipt send(ToweringPayload payload) {
+		int chunkCount = payload.getChunkCount();
+		ToweringReceipt receipt = newReceipt(payload);
+		resume(payload, receipt);
+		while (!receipt.isComplete() && receipt.getAttempts() < maxAttempts) {
+			LOGGER.log(Level.WARNING, "Resuming Towering transfer from chunk #" + receipt.getFirstMissingChunk()
+					+ " (" + receipt.getAcknowledgedCount() + "/" + chunkCount + " acknowledged)");
+			resume(payload, receipt);
+		}
+		return receipt;
+	}
+
+	/**
+	 * Send the chunks of the payload not acknowledged in the checkpoint, from the first missing one, and wait
+	 * for all of them to be acknowledged or failed.
+	 *
+	 * @param receipt
+	 * 			the checkpoint of the previous transfers, updated in place
+	 */
+	public ToweringReceipt resume(final ToweringPayload payload, final ToweringReceipt receipt) {
+		int chunkCount = receipt.getChunkCount();
+		int firstMissing = receipt.getFirstMissingChunk();
+		if (firstMissing < 0) {
+			return receipt;
+		}
+		receipt.startAttempt();
+		final Semaphore window = new Semaphore(maxChunksInFlight);
+		final CountDownLatch done = new CountDownLatch(chunkCount - firstMissing + 1);
+		try {
+			for (int i = firstMissing; i <= chunkCount; i++) {
+				final int chunk = i;
+				if (receipt.isAcknowledged(chunk)) {
+					done.countDown();
+					continue;
+				}
+				window.acquire();
+				receipt.chunkSent();
+				try {
+					CHUNK_EXECUTOR.execute(new Runnable() {
+						@Override
+						public void run() {
+							long start = System.nanoTime();
+							Exception failure = null;
+							try {
+								transport.sendChunk(payload, chunk);
+								receipt.acknowledge(chunk);
+							} catch (Exception e) {
+								failure = e;
+								LOGGER.log(Level.WARNING, "Towering chunk #" + chunk + " failed", e);
+								receipt.fail(chunk, e);
+							} finally {
+								if (HedgingEvents.isEnabled()) {
+									commitChunkEvent(payload, chunk, failure, start);
+								}
+								window.release();
+								done.countDown();
+							}
+						}
+					});
+				} catch (RejectedExecutionException e) {
+					receipt.fail(chunk, e);
+					window.release();
+					done.countDown();
+				}
+			}
+			done.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ARPSystemException(e);
+		}
+		return receipt;
+	}
+
+	private static ToweringReceipt newReceipt(ToweringPayload payload) {
+		int ticketCount = payload.getTicketCount();
+		if (ticketCount == 0) {
+			return new ToweringReceipt(payload.getChunkCount());
+		}
+		int[] firstChunks = new int[ticketCount];
+		int[] lastChunks = new int[ticketCount];
+		for (int ticketId = 1; ticketId <= ticketCount; ticketId++) {
+			firstChunks[ticketId - 1] = payload.getTicketFirstChunk(ticketId);
+			lastChunks[ticketId - 1] = payload.getTicketLastChunk(ticketId);
+		}
+		return new ToweringReceipt(payload.getChunkCount(), firstChunks, lastChunks);
+	}
+
+	/**
+	 * the event carries the transaction of the first ticket of the envelope, its name the number of tickets
+	 */
+	private static void commitChunkEvent(ToweringPayload payload, int chunk, Exception failure, long start) {
+		InputEnvelope envelope = payload.getEnvelope();
+		HedgingPosition hp = envelope.size() == 0 ? null : envelope.getEvents().get(0).getPosition();
+		HedgingEvents.commit(HedgingEvent.Kind.TOWERING_CHUNK, "chunk #" + chunk + "/" + payload.getChunkCount()
+				+ " of " + envelope.size() + " tickets", hp, HedgingEvents.outcomeOf(failure), start);
+	}
+}
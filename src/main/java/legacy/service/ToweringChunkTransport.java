@@ -0,0 +1,13 @@
+package legacy.service;
+
+/**
+ * <p>
+ *     Title: legacy.service.ToweringChunkTransport
+ * </p>
+ * <p>sends one chunk of a payload to Towering, returns once Towering acknowledged it</p>
+ */
+public interface ToweringChunkTransport {
+
+	void sendChunk(ToweringPayload payload, int chunk) throws Exception;
+
+}
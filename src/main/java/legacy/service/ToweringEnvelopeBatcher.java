@@ -0,0 +1,199 @@
+package legacy.service;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import legacy.dto.InputEnvelope;
+import legacy.dto.InputEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ *     Title: legacy.service.ToweringEnvelopeBatcher
+ * </p>
+ * <p>
+ *     Packs the tickets submitted by concurrent senders into envelopes so that the fixed cost of a Towering
+ *     exchange is paid once per envelope. An envelope leaves when it holds maxEnvelopeSize tickets or when its
+ *     first ticket waited lingerMillis, whichever comes first.
+ * </p>
+ */
+public class ToweringEnvelopeBatcher {
+
+	public static final int DEFAULT_MAX_ENVELOPE_SIZE = 50;
+	public static final long DEFAULT_LINGER_MILLIS = 20;
+	/**
+	 * longest wait for a receipt: the linger, then every chunk of the envelope sent one after another for each attempt
+	 */
+	public static final long DEFAULT_RECEIPT_TIMEOUT_SECONDS = 5 * 60;
+
+	private static Logger LOGGER = Logger.getLogger(ToweringEnvelopeBatcher.class.getName());
+	private static volatile ToweringEnvelopeBatcher batcher;
+
+	static {
+		batcher = new ToweringEnvelopeBatcher(DEFAULT_MAX_ENVELOPE_SIZE, DEFAULT_LINGER_MILLIS);
+	}
+
+	public static ToweringEnvelopeBatcher getInstance() {
+		return batcher;
+	}
+
+	/**
+	 * plug another batcher in, the previous one still sends the tickets it holds
+	 */
+	public static void setInstance(ToweringEnvelopeBatcher instance) {
+		batcher = instance;
+	}
+
+	private final int maxEnvelopeSize;
+	private final long lingerMillis;
+	private final ScheduledExecutorService lingerTimer = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("towering-linger-%d").setDaemon(true).build());
+	private final ExecutorService envelopeExecutor = Executors.newCachedThreadPool(
+			new ThreadFactoryBuilder().setNameFormat("towering-envelope-%d").setDaemon(true).build());
+
+	private List<PendingTicket> pending = new ArrayList<PendingTicket>();
+	private ScheduledFuture<?> lingerFlush;
+
+	public ToweringEnvelopeBatcher(int maxEnvelopeSize, long lingerMillis) {
+		if (maxEnvelopeSize < 1) {
+			throw new IllegalArgumentException("maxEnvelopeSize must be at least 1: " + maxEnvelopeSize);
+		}
+		this.maxEnvelopeSize = maxEnvelopeSize;
+		this.lingerMillis = lingerMillis;
+	}
+
+	/**
+	 * @return the share of the ticket in the receipt of the envelope it left in
+	 */
+	public ListenableFuture<ToweringTicketReceipt> submit(InputEvent event) {
+		SettableFuture<ToweringTicketReceipt> receipt = SettableFuture.create();
+		List<PendingTicket> envelope = null;
+		synchronized (this) {
+			pending.add(new PendingTicket(event, receipt));
+			if (pending.size() >= maxEnvelopeSize) {
+				envelope = drain();
+			} else if (pending.size() == 1) {
+				try {
+					lingerFlush = lingerTimer.schedule(new Runnable() {
+						@Override
+						public void run() {
+							flush();
+						}
+					}, lingerMillis, TimeUnit.MILLISECONDS);
+				} catch (RejectedExecutionException e) {
+					envelope = drain();
+				}
+			}
+		}
+		if (envelope != null) {
+			send(envelope);
+		}
+		return receipt;
+	}
+
+	/**
+	 * submit the ticket and wait at most timeout for its receipt
+	 *
+	 * @throws TimeoutException
+	 * 			if the receipt did not come in time, the ticket may still be sent
+	 */
+	public ToweringTicketReceipt submitAndWait(InputEvent event, long timeout, TimeUnit unit)
+			throws ExecutionException, InterruptedException, TimeoutException {
+		return submit(event).get(timeout, unit);
+	}
+
+	/**
+	 * send the pending tickets without waiting for the envelope to fill up
+	 */
+	public void flush() {
+		List<PendingTicket> envelope;
+		synchronized (this) {
+			envelope = drain();
+		}
+		if (!envelope.isEmpty()) {
+			send(envelope);
+		}
+	}
+
+	/**
+	 * send the pending tickets and stop, the tickets submitted afterwards fail at once
+	 */
+	public void shutdown() {
+		flush();
+		lingerTimer.shutdown();
+		envelopeExecutor.shutdown();
+	}
+
+	private List<PendingTicket> drain() {
+		if (lingerFlush != null) {
+			lingerFlush.cancel(false);
+			lingerFlush = null;
+		}
+		List<PendingTicket> envelope = pending;
+		pending = new ArrayList<PendingTicket>();
+		return envelope;
+	}
+
+	private void send(final List<PendingTicket> tickets) {
+		try {
+			envelopeExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					List<InputEvent> events = new ArrayList<InputEvent>(tickets.size());
+					for (PendingTicket ticket : tickets) {
+						events.add(ticket.event);
+					}
+					try {
+						ToweringReceipt receipt = sendEnvelope(new InputEnvelope(events));
+						for (PendingTicket ticket : tickets) {
+							ticket.receipt.set(receipt.getTicket(ticket.event.getId()));
+						}
+					} catch (Throwable t) {
+						fail(tickets, t);
+						if (t instanceof Error) {
+							throw (Error) t;
+						}
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			fail(tickets, e);
+		}
+	}
+
+	/**
+	 * no ticket is left waiting: the receipts not set yet fail with the cause
+	 */
+	private static void fail(List<PendingTicket> tickets, Throwable cause) {
+		LOGGER.log(Level.SEVERE, "Cannot send envelope of " + tickets.size() + " tickets to Towering", cause);
+		for (PendingTicket ticket : tickets) {
+			ticket.receipt.setException(cause);
+		}
+	}
+
+	protected ToweringReceipt sendEnvelope(InputEnvelope envelope) {
+		return ToweringXMLHTTPServiceClient.sendEnvelopeToTowering(envelope);
+	}
+
+	private static class PendingTicket {
+		private final InputEvent event;
+		private final SettableFuture<ToweringTicketReceipt> receipt;
+
+		private PendingTicket(InputEvent event, SettableFuture<ToweringTicketReceipt> receipt) {
+			this.event = event;
+			this.receipt = receipt;
+		}
+	}
+}
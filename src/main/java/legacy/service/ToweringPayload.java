@@ -0,0 +1,95 @@
+package legacy.service;
+
+import legacy.dto.InputEnvelope;
+
+/**
+ * <p>
+ *     Title: legacy.service.ToweringPayload
+ * </p>
+ * <p>
+ *     The serialized form of an envelope, cut into chunkCount chunks numbered from 1. The bytes are not copied:
+ *     the payload is only valid while the envelope is being sent. The bounds of the tickets, when known, tell
+ *     which chunks hold each ticket.
+ * </p>
+ */
+public class ToweringPayload {
+
+	private final InputEnvelope envelope;
+	private final byte[] bytes;
+	private final int length;
+	private final int chunkCount;
+	private final int[] ticketBounds;
+
+	public ToweringPayload(InputEnvelope envelope, byte[] bytes, int length, int chunkCount) {
+		this(envelope, bytes, length, chunkCount, null);
+	}
+
+	/**
+	 * @param ticketBounds
+	 * 			offset of the first byte of each ticket, then the offset past the last ticket
+	 */
+	public ToweringPayload(InputEnvelope envelope, byte[] bytes, int length, int chunkCount, int[] ticketBounds) {
+		this.envelope = envelope;
+		this.bytes = bytes;
+		this.length = length;
+		this.chunkCount = chunkCount;
+		this.ticketBounds = ticketBounds;
+	}
+
+	public InputEnvelope getEnvelope() {
+		return envelope;
+	}
+
+	public byte[] getBytes() {
+		return bytes;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	public int getChunkCount() {
+		return chunkCount;
+	}
+
+	public int getChunkOffset(int chunk) {
+		return (int) ((long) length * (chunk - 1) / chunkCount);
+	}
+
+	public int getChunkLength(int chunk) {
+		return getChunkOffset(chunk + 1) - getChunkOffset(chunk);
+	}
+
+	/**
+	 * @return the number of tickets whose bounds are known, 0 if they are not
+	 */
+	public int getTicketCount() {
+		return ticketBounds == null || length == 0 ? 0 : ticketBounds.length - 1;
+	}
+
+	/**
+	 * @param ticketId
+	 * 			the id of the ticket in the envelope, from 1
+	 */
+	public int getTicketFirstChunk(int ticketId) {
+		return getChunkOf(ticketBounds[ticketId - 1]);
+	}
+
+	public int getTicketLastChunk(int ticketId) {
+		return getChunkOf(ticketBounds[ticketId] - 1);
+	}
+
+	/**
+	 * @return the number of the chunk holding the byte at this offset
+	 */
+	int getChunkOf(int offset) {
+		int chunk = (int) ((long) offset * chunkCount / length) + 1;
+		while (chunk < chunkCount && getChunkOffset(chunk + 1) <= offset) {
+			chunk++;
+		}
+		while (chunk > 1 && getChunkOffset(chunk) > offset) {
+			chunk--;
+		}
+		return chunk;
+	}
+}
@@ -0,0 +1,134 @@
+package legacy.service;
+
+import java.util.BitSet;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ *     Title: legacy.service.ToweringReceipt
+ * </p>
+ * <p>
+ *     Acknowledgements of the chunks of one exchange with Towering. Chunks are numbered from 1 and may be
+ *     acknowledged in any order, the receipt puts them back in chunk order. The chunks holding each ticket of the
+ *     envelope are known, {@link #getTicket(int)} gives the share of one ticket.
+ * </p>
+ * <p>
+ *     It is also the checkpoint of the transfer: a retry resumes from {@link #getFirstMissingChunk()} and
+ *     skips the chunks already acknowledged.
+ * </p>
+ */
+public class ToweringReceipt {
+
+	private final int chunkCount;
+	private final int[] ticketFirstChunks;
+	private final int[] ticketLastChunks;
+	private final BitSet acknowledged;
+	private final SortedMap<Integer, Throwable> failures = new TreeMap<Integer, Throwable>();
+	private int attempts;
+	private int chunksSent;
+
+	/**
+	 * receipt of an exchange whose tickets all span every chunk
+	 */
+	public ToweringReceipt(int chunkCount) {
+		this(chunkCount, null, null);
+	}
+
+	/**
+	 * @param ticketFirstChunks
+	 * 			first chunk of each ticket, by ticket id - 1
+	 * @param ticketLastChunks
+	 * 			last chunk of each ticket, by ticket id - 1
+	 */
+	public ToweringReceipt(int chunkCount, int[] ticketFirstChunks, int[] ticketLastChunks) {
+		this.chunkCount = chunkCount;
+		this.ticketFirstChunks = ticketFirstChunks;
+		this.ticketLastChunks = ticketLastChunks;
+		this.acknowledged = new BitSet(chunkCount + 1);
+	}
+
+	public int getChunkCount() {
+		return chunkCount;
+	}
+
+	synchronized void startAttempt() {
+		attempts++;
+	}
+
+	synchronized void chunkSent() {
+		chunksSent++;
+	}
+
+	synchronized void acknowledge(int chunk) {
+		acknowledged.set(chunk);
+		failures.remove(chunk);
+	}
+
+	synchronized void fail(int chunk, Throwable cause) {
+		failures.put(chunk, cause);
+	}
+
+	public synchronized boolean isAcknowledged(int chunk) {
+		return acknowledged.get(chunk);
+	}
+
+	/**
+	 * @param ticketId
+	 * 			the id of the ticket in the envelope, from 1
+	 */
+	public ToweringTicketReceipt getTicket(int ticketId) {
+		if (ticketFirstChunks == null) {
+			return new ToweringTicketReceipt(this, ticketId, 1, chunkCount);
+		}
+		return new ToweringTicketReceipt(this, ticketId, ticketFirstChunks[ticketId - 1], ticketLastChunks[ticketId - 1]);
+	}
+
+	synchronized boolean isAcknowledged(int firstChunk, int lastChunk) {
+		return acknowledged.nextClearBit(firstChunk) > lastChunk;
+	}
+
+	synchronized SortedMap<Integer, Throwable> getFailures(int firstChunk, int lastChunk) {
+		return new TreeMap<Integer, Throwable>(failures.subMap(firstChunk, lastChunk + 1));
+	}
+
+	/**
+	 * @return true when every chunk has been acknowledged by Towering
+	 */
+	public synchronized boolean isComplete() {
+		return acknowledged.cardinality() == chunkCount;
+	}
+
+	public synchronized int getAcknowledgedCount() {
+		return acknowledged.cardinality();
+	}
+
+	/**
+	 * @return the number of the first chunk not acknowledged yet, -1 if the exchange is complete
+	 */
+	public synchronized int getFirstMissingChunk() {
+		int chunk = acknowledged.nextClearBit(1);
+		return chunk > chunkCount ? -1 : chunk;
+	}
+
+	/**
+	 * @return the number of transfers of this ticket, the first one and the resumed ones
+	 */
+	public synchronized int getAttempts() {
+		return attempts;
+	}
+
+	/**
+	 * @return the number of chunks put on the wire, retransmissions included
+	 */
+	public synchronized int getChunksSent() {
+		return chunksSent;
+	}
+
+	/**
+	 * @return the failure of each chunk that could not be sent, by chunk number
+	 */
+	public synchronized SortedMap<Integer, Throwable> getFailures() {
+		return new TreeMap<Integer, Throwable>(failures);
+	}
+}
@@ -0,0 +1,60 @@
+package legacy.service;
+
+import java.util.SortedMap;
+
+/**
+ * <p>
+ *     Title: legacy.service.ToweringTicketReceipt
+ * </p>
+ * <p>
+ *     The share of one ticket in the receipt of its envelope: the chunks holding the bytes of the ticket.
+ *     The ticket is acknowledged once these chunks are, whatever happened to the other tickets of the envelope.
+ * </p>
+ */
+public class ToweringTicketReceipt {
+
+	private final ToweringReceipt envelopeReceipt;
+	private final int ticketId;
+	private final int firstChunk;
+	private final int lastChunk;
+
+	ToweringTicketReceipt(ToweringReceipt envelopeReceipt, int ticketId, int firstChunk, int lastChunk) {
+		this.envelopeReceipt = envelopeReceipt;
+		this.ticketId = ticketId;
+		this.firstChunk = firstChunk;
+		this.lastChunk = lastChunk;
+	}
+
+	public ToweringReceipt getEnvelopeReceipt() {
+		return envelopeReceipt;
+	}
+
+	/**
+	 * @return the id of the ticket in its envelope, from 1
+	 */
+	public int getTicketId() {
+		return ticketId;
+	}
+
+	public int getFirstChunk() {
+		return firstChunk;
+	}
+
+	public int getLastChunk() {
+		return lastChunk;
+	}
+
+	/**
+	 * @return true when every chunk of the ticket has been acknowledged by Towering
+	 */
+	public boolean isComplete() {
+		return envelopeReceipt.isAcknowledged(firstChunk, lastChunk);
+	}
+
+	/**
+	 * @return the failure of each chunk of the ticket that could not be sent, by chunk number
+	 */
+	public SortedMap<Integer, Throwable> getFailures() {
+		return envelopeReceipt.getFailures(firstChunk, lastChunk);
+	}
+}
@@ -1,20 +1,71 @@
 package legacy.service;
 
+import legacy.dto.InputEnvelope;
 import legacy.dto.InputEvent;
-import legacy.hedge.HedgingPosition;
+
+import java.util.Collections;
 
 public class ToweringXMLHTTPServiceClient {
 
-	public static HedgingPosition sendTicketToTowering(InputEvent event) {
-		for (int i = 1; i <= 100; i++) {
-			buildHttpRequestAndSendToTowering(event);
-			System.out.println("[remote] Sending HedgingPosition chunk #"+i+" to Towering");
+	public static final int CHUNK_COUNT = 100;
+	public static final int DEFAULT_MAX_CHUNKS_IN_FLIGHT = 10;
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+	private static final ToweringChunkTransport HTTP_TRANSPORT = new ToweringChunkTransport() {
+		@Override
+		public void sendChunk(ToweringPayload payload, int chunk) {
+			buildHttpRequestAndSendToTowering(payload, chunk);
+			System.out.println("[remote] Sending " + payload.getEnvelope().size() + " HedgingPosition(s) chunk #"+chunk+" to Towering");
+		}
+	};
+
+	private static final ThreadLocal<HedgingPositionXmlWriter> WRITER = new ThreadLocal<HedgingPositionXmlWriter>() {
+		@Override
+		protected HedgingPositionXmlWriter initialValue() {
+			return new HedgingPositionXmlWriter();
 		}
-		return new HedgingPosition();
+	};
+
+	private static volatile ToweringChunkTransport transport = HTTP_TRANSPORT;
+	private static volatile ToweringChunkSender sender = new ToweringChunkSender(DEFAULT_MAX_CHUNKS_IN_FLIGHT, DEFAULT_MAX_ATTEMPTS, HTTP_TRANSPORT);
+
+	public static ToweringReceipt sendTicketToTowering(InputEvent event) {
+		return sendEnvelopeToTowering(new InputEnvelope(Collections.singletonList(event)));
+	}
+
+	/**
+	 * one exchange for all the tickets of the envelope
+	 */
+	public static ToweringReceipt sendEnvelopeToTowering(InputEnvelope envelope) {
+		// the writer of this thread is not reused before the send returns
+		HedgingPositionXmlWriter writer = WRITER.get();
+		XmlOutputBuffer xml = writer.writeEnvelope(envelope);
+		return sender.send(new ToweringPayload(envelope, xml.array(), xml.size(), CHUNK_COUNT, writer.getTicketBounds()));
 	}
 
+	public static int getMaxChunksInFlight() {
+		return sender.getMaxChunksInFlight();
+	}
 
+	/**
+	 * @param maxChunksInFlight
+	 * 			number of chunks of a ticket sent at the same time, 1 sends them one after another
+	 */
+	public static synchronized void setMaxChunksInFlight(int maxChunksInFlight) {
+		sender = new ToweringChunkSender(maxChunksInFlight, sender.getMaxAttempts(), transport);
+	}
 
+	public static int getMaxAttempts() {
+		return sender.getMaxAttempts();
+	}
+
+	/**
+	 * @param maxAttempts
+	 * 			number of transfers of a ticket before giving up, each retry resumes from the first missing chunk
+	 */
+	public static synchronized void setMaxAttempts(int maxAttempts) {
+		sender = new ToweringChunkSender(sender.getMaxChunksInFlight(), maxAttempts, transport);
+	}
 
 
 
@@ -32,8 +83,16 @@ public class ToweringXMLHTTPServiceClient {
 
 
 
+	/**
+	 * @param chunkTransport
+	 * 			sends the chunks in place of the HTTP exchange, null restores it
+	 */
+	public static synchronized void setTransport(ToweringChunkTransport chunkTransport) {
+		transport = chunkTransport == null ? HTTP_TRANSPORT : chunkTransport;
+		sender = new ToweringChunkSender(sender.getMaxChunksInFlight(), sender.getMaxAttempts(), transport);
+	}
 
-	private static void buildHttpRequestAndSendToTowering(InputEvent event) {
+	private static void buildHttpRequestAndSendToTowering(ToweringPayload payload, int chunk) {
 		try {
 			Thread.sleep(1000);
 		} catch (InterruptedException e) {
@@ -1,18 +1,28 @@
 package legacy.service;
 
+import legacy.FixedPointDecimal;
 import legacy.dto.Amount;
 
 public class TradingOrder {
 
-	private double portfolio_bl;
+	// FixedPointDecimal units
+	private long portfolio_bl;
 	private Amount price;
 	private String fixedCCY;
 
 	public double getPortfolio_bl() {
-		return portfolio_bl;
+		return FixedPointDecimal.toDouble(portfolio_bl);
 	}
 
 	public void setPortfolio_bl(double portfolio_bl) {
+		this.portfolio_bl = FixedPointDecimal.fromDouble(portfolio_bl);
+	}
+
+	public long getPortfolio_blUnits() {
+		return portfolio_bl;
+	}
+
+	public void setPortfolio_blUnits(long portfolio_bl) {
 		this.portfolio_bl = portfolio_bl;
 	}
 
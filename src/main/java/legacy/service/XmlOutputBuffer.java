@@ -0,0 +1,191 @@
+package legacy.service;
+
+import legacy.FixedPointDecimal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * <p>
+ *     Title: legacy.service.XmlOutputBuffer
+ * </p>
+ * <p>
+ *     Growable UTF-8 byte buffer meant to be reset and reused: once it reached the size of the biggest document
+ *     written, appending does not allocate anymore.
+ * </p>
+ */
+public class XmlOutputBuffer {
+
+	private static final byte[] DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9'};
+	private static final byte[] LONG_MIN_VALUE = ascii(String.valueOf(Long.MIN_VALUE));
+	// U+FFFD, written instead of the characters XML 1.0 does not allow
+	private static final byte[] REPLACEMENT_CHARACTER = {(byte) 0xEF, (byte) 0xBF, (byte) 0xBD};
+
+	private byte[] bytes;
+	private int size;
+
+	public XmlOutputBuffer(int initialCapacity) {
+		this.bytes = new byte[initialCapacity];
+	}
+
+	static byte[] ascii(String s) {
+		byte[] b = new byte[s.length()];
+		for (int i = 0; i < b.length; i++) {
+			b[i] = (byte) s.charAt(i);
+		}
+		return b;
+	}
+
+	public void reset() {
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the backing array, valid up to {@link #size()} and until the next write
+	 */
+	public byte[] array() {
+		return bytes;
+	}
+
+	public byte[] toByteArray() {
+		return Arrays.copyOf(bytes, size);
+	}
+
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(bytes, 0, size);
+	}
+
+	private void ensureCapacity(int extra) {
+		if (size + extra > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+		}
+	}
+
+	public void append(byte b) {
+		ensureCapacity(1);
+		bytes[size++] = b;
+	}
+
+	public void append(byte[] b) {
+		ensureCapacity(b.length);
+		System.arraycopy(b, 0, bytes, size, b.length);
+		size += b.length;
+	}
+
+	/**
+	 * append a string known to be plain ASCII, such as an enum name
+	 */
+	public void appendAscii(String s) {
+		int length = s.length();
+		ensureCapacity(length);
+		for (int i = 0; i < length; i++) {
+			bytes[size++] = (byte) s.charAt(i);
+		}
+	}
+
+	/**
+	 * append XML character data, escaped and UTF-8 encoded; the control characters other than tab, line feed and
+	 * carriage return, the unpaired surrogates, U+FFFE and U+FFFF are not allowed by XML 1.0 and are replaced by U+FFFD
+	 */
+	public void appendText(String s) {
+		int length = s.length();
+		for (int i = 0; i < length; i++) {
+			char c = s.charAt(i);
+			switch (c) {
+				case '<':
+					appendAscii("&lt;");
+					break;
+				case '>':
+					appendAscii("&gt;");
+					break;
+				case '&':
+					appendAscii("&amp;");
+					break;
+				case '"':
+					appendAscii("&quot;");
+					break;
+				default:
+					if (c < 0x20 && c != '\t' && c != '\n' && c != '\r') {
+						append(REPLACEMENT_CHARACTER);
+					} else if (c < 0x80) {
+						append((byte) c);
+					} else if (c < 0x800) {
+						ensureCapacity(2);
+						bytes[size++] = (byte) (0xC0 | (c >> 6));
+						bytes[size++] = (byte) (0x80 | (c & 0x3F));
+					} else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+						int cp = Character.toCodePoint(c, s.charAt(++i));
+						ensureCapacity(4);
+						bytes[size++] = (byte) (0xF0 | (cp >> 18));
+						bytes[size++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+						bytes[size++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+						bytes[size++] = (byte) (0x80 | (cp & 0x3F));
+					} else if (Character.isSurrogate(c) || c >= 0xFFFE) {
+						append(REPLACEMENT_CHARACTER);
+					} else {
+						ensureCapacity(3);
+						bytes[size++] = (byte) (0xE0 | (c >> 12));
+						bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+						bytes[size++] = (byte) (0x80 | (c & 0x3F));
+					}
+			}
+		}
+	}
+
+	public void appendLong(long value) {
+		if (value == Long.MIN_VALUE) {
+			append(LONG_MIN_VALUE);
+			return;
+		}
+		if (value < 0) {
+			append((byte) '-');
+			value = -value;
+		}
+		int digits = 1;
+		for (long v = value / 10; v != 0; v /= 10) {
+			digits++;
+		}
+		ensureCapacity(digits);
+		for (int i = size + digits - 1; i >= size; i--) {
+			bytes[i] = DIGITS[(int) (value % 10)];
+			value /= 10;
+		}
+		size += digits;
+	}
+
+	/**
+	 * append value left padded with zeros to width digits, value must be positive
+	 */
+	public void appendPadded(long value, int width) {
+		ensureCapacity(width);
+		for (int i = size + width - 1; i >= size; i--) {
+			bytes[i] = DIGITS[(int) (value % 10)];
+			value /= 10;
+		}
+		size += width;
+	}
+
+	/**
+	 * write a {@link FixedPointDecimal}, trailing zero decimals dropped down to minDecimals
+	 */
+	public void appendDecimal(long units, int minDecimals) {
+		if (units < 0) {
+			append((byte) '-');
+		}
+		appendLong(Math.abs(units / FixedPointDecimal.ONE));
+		int decimals = FixedPointDecimal.significantDecimals(units, minDecimals);
+		if (decimals > 0) {
+			append((byte) '.');
+			long fraction = Math.abs(units % FixedPointDecimal.ONE);
+			for (int i = decimals; i < FixedPointDecimal.DECIMALS; i++) {
+				fraction /= 10;
+			}
+			appendPadded(fraction, decimals);
+		}
+	}
+}
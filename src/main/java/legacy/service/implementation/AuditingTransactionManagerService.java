@@ -0,0 +1,158 @@
+package legacy.service.implementation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import legacy.dto.Modif;
+import legacy.hedge.HedgingPosition;
+import legacy.persistence.AuditDiffer;
+import legacy.persistence.BaseDTO;
+import legacy.persistence.FieldChange;
+import legacy.persistence.ObjectDTO;
+import legacy.security.User;
+import legacy.security.UserSessionsManager;
+import legacy.service.ITransactionManagerService;
+import legacy.service.Lifecycle;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * <p>
+ *     Title: legacy.service.implementation.AuditingTransactionManagerService
+ * </p>
+ * <p>
+ *     Attaches to each stored position a {@link Modif} listing the audited fields changed since the position was
+ *     last stored, then stores it with another {@link ITransactionManagerService}. Only the audited values of the
+ *     last stored state are kept, per position id, for the maximumSize positions stored last. The state of the
+ *     others, and of every position after a restart, is read back from the {@link HedgingPositionJournal} the
+ *     positions are stored in; without journal they are audited as a creation.
+ * </p>
+ */
+public class AuditingTransactionManagerService implements ITransactionManagerService, Lifecycle {
+
+	public static final long DEFAULT_MAXIMUM_SIZE = 100000;
+
+	private final ITransactionManagerService delegate;
+	private final HedgingPositionJournal journal;
+	private final Cache<Integer, Object[]> storedStates;
+
+	public AuditingTransactionManagerService(ITransactionManagerService delegate) {
+		this(delegate, null, DEFAULT_MAXIMUM_SIZE);
+	}
+
+	public AuditingTransactionManagerService(ITransactionManagerService delegate, HedgingPositionJournal journal) {
+		this(delegate, journal, DEFAULT_MAXIMUM_SIZE);
+	}
+
+	/**
+	 * @param journal
+	 * 			where the delegate stores the positions, null if they are not journaled
+	 * @param maximumSize
+	 * 			number of positions whose last stored state is kept in memory
+	 */
+	public AuditingTransactionManagerService(ITransactionManagerService delegate, HedgingPositionJournal journal,
+			long maximumSize) {
+		this.delegate = delegate;
+		this.journal = journal;
+		this.storedStates = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+	}
+
+	@Override
+	public <T extends ObjectDTO> T classStorageAction(HedgingPosition hp) {
+		Object[] after = audit(hp);
+		T stored = delegate.classStorageAction(hp);
+		stored(hp, after);
+		return stored;
+	}
+
+	@Override
+	public List<HedgingPosition> classStorageActions(List<HedgingPosition> hps) {
+		List<Object[]> afters = new ArrayList<Object[]>(hps.size());
+		for (HedgingPosition hp : hps) {
+			afters.add(audit(hp));
+		}
+		List<HedgingPosition> stored = delegate.classStorageActions(hps);
+		for (int i = 0; i < hps.size(); i++) {
+			stored(hps.get(i), afters.get(i));
+		}
+		return stored;
+	}
+
+	/**
+	 * @return the audited state being stored, kept by {@link #stored(HedgingPosition, Object[])} once it is
+	 */
+	private Object[] audit(HedgingPosition hp) {
+		Object[] after = AuditDiffer.snapshot(hp);
+		Object[] before = hp.getId() == BaseDTO.NO_ID ? null : getStoredState(hp.getId());
+		List<FieldChange> changes = AuditDiffer.diff(HedgingPosition.class, before, after);
+		if (changes.isEmpty()) {
+			return after;
+		}
+		Modif previous = hp.getLastModification();
+		Modif modif = new Modif();
+		modif.setAuditableClassName(HedgingPosition.class.getName());
+		modif.setDTOID(hp.getId());
+		modif.setModificationDate(new Date());
+		modif.setUser(getUser(hp));
+		modif.setVersion(previous == null ? 0 : previous.getVersion() + 1);
+		modif.setChanges(changes);
+		hp.setLastModification(modif);
+		return after;
+	}
+
+	/**
+	 * @return the audited values of the last stored state, null if the position was never stored
+	 */
+	private Object[] getStoredState(int id) {
+		Object[] state = storedStates.getIfPresent(id);
+		if (state == null && journal != null) {
+			HedgingPosition stored = journal.get(id);
+			state = stored == null ? null : AuditDiffer.snapshot(stored);
+		}
+		return state;
+	}
+
+	/**
+	 * the position is stored from the hedging executors where no session is bound: the user who initialized it
+	 * is taken first, the session user only when there is none
+	 */
+	private static String getUser(HedgingPosition hp) {
+		if (hp.getIkRtH() != null) {
+			return hp.getIkRtH();
+		}
+		User user = UserSessionsManager.getInstance().getCurrentUser();
+		return user == null ? null : user.getName();
+	}
+
+	/**
+	 * the delegate stored the position, its audited state becomes the reference of the next diff
+	 */
+	private void stored(HedgingPosition hp, Object[] after) {
+		if (hp.getId() != BaseDTO.NO_ID) {
+			storedStates.put(hp.getId(), after);
+		}
+	}
+
+	/**
+	 * drop the audited state of a position, its next storage is audited as a creation
+	 */
+	public void forget(int id) {
+		storedStates.invalidate(id);
+	}
+
+	@Override
+	public void start() {
+		if (delegate instanceof Lifecycle) {
+			((Lifecycle) delegate).start();
+		}
+	}
+
+	@Override
+	public void stop() {
+		storedStates.invalidateAll();
+		if (delegate instanceof Lifecycle) {
+			((Lifecycle) delegate).stop();
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package legacy.service.implementation;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import legacy.dto.Transaction;
+import legacy.service.ITradingDataAccessService;
+import legacy.service.Lifecycle;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *     Title: legacy.service.implementation.CachingTradingDataAccessService
+ * </p>
+ * <p>
+ *     Read-through cache of the transactions in front of another {@link ITradingDataAccessService}. The cache is
+ *     bounded in size (least recently used transactions go first) and each transaction expires after a TTL.
+ *     The transactions handed out are shared, they must not be modified.
+ * </p>
+ * <p>
+ *     The transactions are changed by the trading system only, nothing here is notified of it: a cached
+ *     transaction may be up to one TTL ({@link #DEFAULT_TTL_MINUTES} minutes by default) older than the trading
+ *     system's. {@link #invalidate(int, int)} is for a listener of the trading updates, when there is one.
+ * </p>
+ */
+public class CachingTradingDataAccessService implements ITradingDataAccessService, Lifecycle {
+
+	public static final long DEFAULT_MAXIMUM_SIZE = 10000;
+	public static final long DEFAULT_TTL_MINUTES = 5;
+
+	private final ITradingDataAccessService delegate;
+	private final LoadingCache<Integer, Transaction> transactions;
+
+	public CachingTradingDataAccessService(ITradingDataAccessService delegate) {
+		this(delegate, DEFAULT_MAXIMUM_SIZE, DEFAULT_TTL_MINUTES, TimeUnit.MINUTES);
+	}
+
+	public CachingTradingDataAccessService(final ITradingDataAccessService delegate, long maximumSize, long ttl, TimeUnit unit) {
+		this.delegate = delegate;
+		this.transactions = CacheBuilder.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(ttl, unit)
+				.recordStats()
+				.build(new CacheLoader<Integer, Transaction>() {
+					@Override
+					public Transaction load(Integer id) {
+						return delegate.getTransactionById(id);
+					}
+				});
+	}
+
+	@Override
+	public Transaction getTransactionById(int id) {
+		try {
+			return transactions.getUnchecked(id);
+		} catch (UncheckedExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	public int getOptionalIdFromTransaction(Transaction transaction) {
+		return delegate.getOptionalIdFromTransaction(transaction);
+	}
+
+	@Override
+	public long computeDPSOnTheGrid(Long id) {
+		return delegate.computeDPSOnTheGrid(id);
+	}
+
+	@Override
+	public void start() {
+		if (delegate instanceof Lifecycle) {
+			((Lifecycle) delegate).start();
+		}
+	}
+
+	@Override
+	public void stop() {
+		transactions.invalidateAll();
+		if (delegate instanceof Lifecycle) {
+			((Lifecycle) delegate).stop();
+		}
+	}
+
+	public void invalidate(int id) {
+		transactions.invalidate(id);
+	}
+
+	/**
+	 * the transaction changed: drop the cached copy if it is older than updateVersion
+	 */
+	public void invalidate(int id, int updateVersion) {
+		Transaction cached = transactions.getIfPresent(id);
+		if (cached != null && cached.getUpdateVersion() < updateVersion) {
+			transactions.invalidate(id);
+		}
+	}
+
+	public void invalidateAll() {
+		transactions.invalidateAll();
+	}
+
+	public long size() {
+		return transactions.size();
+	}
+
+	/**
+	 * @return hits, misses, load times and evictions since the cache was built
+	 */
+	public CacheStats stats() {
+		return transactions.stats();
+	}
+}
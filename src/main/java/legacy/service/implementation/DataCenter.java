@@ -0,0 +1,35 @@
+package legacy.service.implementation;
+
+/**
+ * <p>
+ *     Title: legacy.service.implementation.DataCenter
+ * </p>
+ * <p>the trading data centers, in order of preference</p>
+ */
+public enum DataCenter {
+
+	FX01("Alabama, USA", 2, false),
+	FX07("Honk-Kong", 3, true);
+
+	private final String location;
+	private final int connectionDelayInSeconds;
+	private final boolean responding;
+
+	private DataCenter(String location, int connectionDelayInSeconds, boolean responding) {
+		this.location = location;
+		this.connectionDelayInSeconds = connectionDelayInSeconds;
+		this.responding = responding;
+	}
+
+	public String getLocation() {
+		return location;
+	}
+
+	int getConnectionDelayInSeconds() {
+		return connectionDelayInSeconds;
+	}
+
+	boolean isResponding() {
+		return responding;
+	}
+}
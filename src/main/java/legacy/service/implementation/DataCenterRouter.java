@@ -0,0 +1,134 @@
+package legacy.service.implementation;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ *     Title: legacy.service.implementation.DataCenterRouter
+ * </p>
+ * <p>
+ *     Remembers which data centers are healthy and routes the connections to the preferred healthy one. A data
+ *     center marked down is probed in the background, with an exponential backoff, and only gets traffic back
+ *     once a probe succeeded.
+ * </p>
+ */
+public class DataCenterRouter {
+
+	public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 1000;
+	public static final long DEFAULT_MAX_BACKOFF_MILLIS = 60000;
+
+	private static Logger LOGGER = Logger.getLogger(DataCenterRouter.class.getName());
+
+	/**
+	 * checks whether a data center answers, called from the probing thread
+	 */
+	public interface Probe {
+		boolean isAvailable(DataCenter dataCenter);
+	}
+
+	private final List<DataCenter> preferences;
+	private final Probe probe;
+	private final long initialBackoffMillis;
+	private final long maxBackoffMillis;
+	private final Set<DataCenter> down = Collections.newSetFromMap(new ConcurrentHashMap<DataCenter, Boolean>());
+	private final ScheduledExecutorService prober = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("data-center-probe-%d").setDaemon(true).build());
+	private volatile DataCenter current;
+
+	public DataCenterRouter(List<DataCenter> preferences, Probe probe) {
+		this(preferences, probe, DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS);
+	}
+
+	public DataCenterRouter(List<DataCenter> preferences, Probe probe, long initialBackoffMillis, long maxBackoffMillis) {
+		if (preferences.isEmpty()) {
+			throw new IllegalArgumentException("no data center to route to");
+		}
+		this.preferences = new ArrayList<DataCenter>(preferences);
+		this.probe = probe;
+		this.initialBackoffMillis = initialBackoffMillis;
+		this.maxBackoffMillis = maxBackoffMillis;
+		this.current = this.preferences.get(0);
+	}
+
+	/**
+	 * @return the data center to connect to
+	 */
+	public DataCenter route() {
+		return current;
+	}
+
+	public boolean isDown(DataCenter dataCenter) {
+		return down.contains(dataCenter);
+	}
+
+	/**
+	 * the data center did not answer: stop routing to it and start probing it
+	 *
+	 * @return true if at least one data center is still believed healthy
+	 */
+	public boolean markDown(DataCenter dataCenter) {
+		if (down.add(dataCenter)) {
+			LOGGER.log(Level.WARNING, "Data center " + dataCenter + " marked down");
+			scheduleProbe(dataCenter, initialBackoffMillis);
+		}
+		reroute();
+		return !down.contains(current);
+	}
+
+	private void markUp(DataCenter dataCenter) {
+		down.remove(dataCenter);
+		LOGGER.log(Level.INFO, "Data center " + dataCenter + " is back");
+		reroute();
+	}
+
+	private synchronized void reroute() {
+		for (DataCenter dataCenter : preferences) {
+			if (!down.contains(dataCenter)) {
+				current = dataCenter;
+				return;
+			}
+		}
+		// everything is down, keep trying the preferred one
+		current = preferences.get(0);
+	}
+
+	private void scheduleProbe(final DataCenter dataCenter, final long backoffMillis) {
+		try {
+			prober.schedule(new Runnable() {
+				@Override
+				public void run() {
+					boolean available;
+					try {
+						available = probe.isAvailable(dataCenter);
+					} catch (RuntimeException e) {
+						LOGGER.log(Level.FINE, "Probe of " + dataCenter + " failed", e);
+						available = false;
+					}
+					if (available) {
+						markUp(dataCenter);
+					} else {
+						scheduleProbe(dataCenter, Math.min(backoffMillis * 2, maxBackoffMillis));
+					}
+				}
+			}, backoffMillis, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// shut down, nobody routes anymore
+		}
+	}
+
+	public void shutdown() {
+		prober.shutdownNow();
+	}
+}
@@ -0,0 +1,369 @@
+package legacy.service.implementation;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import legacy.error.ARPSystemException;
+import legacy.hedge.HedgingPosition;
+import legacy.persistence.BaseDTO;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ *     Title: legacy.service.implementation.HedgingPositionJournal
+ * </p>
+ * <p>
+ *     Append-only log of the stored positions, split in memory-mapped segment files of segmentSize bytes.
+ *     A record is its length, the CRC32 of its body and the body encoded by {@link HedgingPositionRecordCodec};
+ *     a zero length marks the end of a segment. {@link #open()} replays the segments to rebuild the latest state
+ *     of each position and drops a record torn by a crash. {@link #compact()} rewrites the latest states in new
+ *     segments and deletes the old ones.
+ * </p>
+ */
+public class HedgingPositionJournal {
+
+	public enum FsyncPolicy {
+		/** force the segment to disk after each append */
+		ALWAYS,
+		/** force the segment to disk every fsyncIntervalMillis */
+		PERIODIC,
+		/** leave it to the operating system */
+		NEVER
+	}
+
+	public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+	public static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 1000;
+
+	private static Logger LOGGER = Logger.getLogger(HedgingPositionJournal.class.getName());
+	private static final String SEGMENT_SUFFIX = ".journal";
+	// record length and CRC32
+	private static final int RECORD_HEADER = 8;
+
+	private final File directory;
+	private final int segmentSize;
+	private final FsyncPolicy fsyncPolicy;
+	private final long fsyncIntervalMillis;
+	private final HedgingPositionRecordCodec codec = new HedgingPositionRecordCodec();
+	private final CRC32 crc = new CRC32();
+
+	private final List<Long> sealedSegments = new ArrayList<Long>();
+	private Segment active;
+	private boolean dirty;
+	private ScheduledExecutorService fsyncTimer;
+	private final Map<Integer, HedgingPosition> latest = new LinkedHashMap<Integer, HedgingPosition>();
+	// positions without id cannot be superseded, they are all kept
+	private final List<HedgingPosition> unidentified = new ArrayList<HedgingPosition>();
+
+	public HedgingPositionJournal(File directory) {
+		this(directory, DEFAULT_SEGMENT_SIZE, FsyncPolicy.PERIODIC, DEFAULT_FSYNC_INTERVAL_MILLIS);
+	}
+
+	public HedgingPositionJournal(File directory, int segmentSize, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) {
+		if (segmentSize <= RECORD_HEADER) {
+			throw new IllegalArgumentException("segmentSize too small: " + segmentSize);
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.fsyncPolicy = fsyncPolicy;
+		this.fsyncIntervalMillis = fsyncIntervalMillis;
+	}
+
+	/**
+	 * replay the segments found in the directory, new records are appended after the last one
+	 */
+	public synchronized void open() {
+		if (active != null) {
+			return;
+		}
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new ARPSystemException("Cannot create journal directory " + directory);
+		}
+		latest.clear();
+		unidentified.clear();
+		sealedSegments.clear();
+		List<Long> segments = listSegments();
+		try {
+			for (int i = 0; i < segments.size(); i++) {
+				Segment segment = Segment.open(segmentFile(segments.get(i)), segments.get(i), segmentSize);
+				replay(segment, i == segments.size() - 1);
+				if (i < segments.size() - 1) {
+					segment.close();
+					sealedSegments.add(segment.number);
+				} else {
+					active = segment;
+				}
+			}
+			if (active == null) {
+				active = Segment.open(segmentFile(0L), 0L, segmentSize);
+			}
+		} catch (IOException e) {
+			throw new ARPSystemException(e);
+		}
+		if (fsyncPolicy == FsyncPolicy.PERIODIC) {
+			fsyncTimer = Executors.newSingleThreadScheduledExecutor(
+					new ThreadFactoryBuilder().setNameFormat("journal-fsync-%d").setDaemon(true).build());
+			fsyncTimer.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					sync();
+				}
+			}, fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void replay(Segment segment, boolean last) {
+		MappedByteBuffer buffer = segment.buffer;
+		while (buffer.remaining() >= RECORD_HEADER) {
+			int start = buffer.position();
+			int length = buffer.getInt();
+			if (length == 0) {
+				buffer.position(start);
+				return;
+			}
+			int checksum = buffer.getInt();
+			if (length < 0 || length > buffer.remaining() || checksum != checksum(buffer, length)) {
+				LOGGER.log(Level.SEVERE, "Torn record at " + start + " of journal segment " + segment.number
+						+ (last ? ", dropped" : ", rest of the segment skipped"));
+				if (last) {
+					// appends start from here, nothing of the torn record must remain behind them
+					buffer.position(start);
+					while (buffer.hasRemaining()) {
+						buffer.put((byte) 0);
+					}
+					buffer.position(start);
+				}
+				return;
+			}
+			apply(codec.decode(buffer));
+		}
+	}
+
+	private int checksum(ByteBuffer buffer, int length) {
+		crc.reset();
+		for (int i = buffer.position(), end = i + length; i < end; i++) {
+			crc.update(buffer.get(i));
+		}
+		return (int) crc.getValue();
+	}
+
+	private void apply(HedgingPosition hp) {
+		if (hp.getId() == BaseDTO.NO_ID) {
+			unidentified.add(hp);
+		} else {
+			latest.put(hp.getId(), hp);
+		}
+	}
+
+	public synchronized void append(HedgingPosition hp) {
+		write(hp);
+		if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+			sync();
+		}
+	}
+
+	/**
+	 * append the positions, with a single fsync for all of them
+	 */
+	public synchronized void append(List<HedgingPosition> hps) {
+		for (HedgingPosition hp : hps) {
+			write(hp);
+		}
+		if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+			sync();
+		}
+	}
+
+	private void write(HedgingPosition hp) {
+		if (active == null) {
+			throw new ARPSystemException("Journal " + directory + " is not open");
+		}
+		ByteBuffer record = codec.encode(hp);
+		int length = record.remaining();
+		if (length + RECORD_HEADER > segmentSize) {
+			throw new ARPSystemException("Record of " + length + " bytes does not fit in a journal segment");
+		}
+		if (active.buffer.remaining() < length + RECORD_HEADER) {
+			roll();
+		}
+		crc.reset();
+		crc.update(record.array(), record.arrayOffset(), length);
+		active.buffer.putInt(length);
+		active.buffer.putInt((int) crc.getValue());
+		active.buffer.put(record);
+		dirty = true;
+		apply(new HedgingPosition(hp));
+	}
+
+	private void roll() {
+		try {
+			if (fsyncPolicy != FsyncPolicy.NEVER) {
+				active.buffer.force();
+			}
+			active.close();
+			sealedSegments.add(active.number);
+			long next = active.number + 1;
+			active = Segment.open(segmentFile(next), next, segmentSize);
+		} catch (IOException e) {
+			throw new ARPSystemException(e);
+		}
+	}
+
+	/**
+	 * force the records appended since the last call to disk
+	 */
+	public synchronized void sync() {
+		if (active != null && dirty) {
+			active.buffer.force();
+			dirty = false;
+		}
+	}
+
+	/**
+	 * rewrite the latest state of each position in new segments and delete the segments before them
+	 */
+	public synchronized void compact() {
+		if (active == null) {
+			throw new ARPSystemException("Journal " + directory + " is not open");
+		}
+		List<HedgingPosition> live = new ArrayList<HedgingPosition>(latest.values());
+		live.addAll(unidentified);
+		latest.clear();
+		unidentified.clear();
+		List<Long> obsolete = new ArrayList<Long>(sealedSegments);
+		obsolete.add(active.number);
+		roll();
+		sealedSegments.removeAll(obsolete);
+		for (HedgingPosition hp : live) {
+			write(hp);
+		}
+		// the old segments go only once the new ones are safe, a crash in between replays both
+		active.buffer.force();
+		dirty = false;
+		for (Long number : obsolete) {
+			if (!segmentFile(number).delete()) {
+				LOGGER.log(Level.WARNING, "Cannot delete compacted journal segment " + segmentFile(number));
+			}
+		}
+	}
+
+	/**
+	 * @return a copy of the latest state of the position, null if it was never stored
+	 */
+	public synchronized HedgingPosition get(int id) {
+		HedgingPosition hp = latest.get(id);
+		return hp == null ? null : new HedgingPosition(hp);
+	}
+
+	/**
+	 * @return a copy of the latest state of every position, in order of first storage
+	 */
+	public synchronized List<HedgingPosition> getPositions() {
+		List<HedgingPosition> positions = new ArrayList<HedgingPosition>(latest.size() + unidentified.size());
+		for (HedgingPosition hp : latest.values()) {
+			positions.add(new HedgingPosition(hp));
+		}
+		for (HedgingPosition hp : unidentified) {
+			positions.add(new HedgingPosition(hp));
+		}
+		return positions;
+	}
+
+	public synchronized int getSegmentCount() {
+		return sealedSegments.size() + (active == null ? 0 : 1);
+	}
+
+	/**
+	 * force the journal to disk and release the active segment
+	 */
+	public synchronized void close() {
+		if (fsyncTimer != null) {
+			fsyncTimer.shutdownNow();
+			fsyncTimer = null;
+		}
+		if (active == null) {
+			return;
+		}
+		if (fsyncPolicy != FsyncPolicy.NEVER) {
+			active.buffer.force();
+		}
+		try {
+			active.close();
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Cannot close journal segment " + active.number, e);
+		}
+		active = null;
+	}
+
+	private List<Long> listSegments() {
+		String[] names = directory.list(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(SEGMENT_SUFFIX);
+			}
+		});
+		List<Long> numbers = new ArrayList<Long>();
+		for (String name : names) {
+			try {
+				numbers.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+			} catch (NumberFormatException e) {
+				LOGGER.log(Level.WARNING, "Ignoring " + name + " in journal directory " + directory);
+			}
+		}
+		Collections.sort(numbers);
+		return numbers;
+	}
+
+	private File segmentFile(long number) {
+		return new File(directory, String.format("%020d%s", number, SEGMENT_SUFFIX));
+	}
+
+	private static class Segment {
+		private final long number;
+		private final RandomAccessFile file;
+		private final MappedByteBuffer buffer;
+
+		private Segment(long number, RandomAccessFile file, MappedByteBuffer buffer) {
+			this.number = number;
+			this.file = file;
+			this.buffer = buffer;
+		}
+
+		/**
+		 * map the segment file, created or grown to size bytes if needed
+		 */
+		private static Segment open(File path, long number, int size) throws IOException {
+			RandomAccessFile file = new RandomAccessFile(path, "rw");
+			try {
+				long length = Math.max(file.length(), size);
+				MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+				return new Segment(number, file, buffer);
+			} catch (IOException e) {
+				file.close();
+				throw e;
+			}
+		}
+
+		/**
+		 * the mapping stays valid until garbage collected, closing the file only releases the descriptor
+		 */
+		private void close() throws IOException {
+			file.close();
+		}
+	}
+}
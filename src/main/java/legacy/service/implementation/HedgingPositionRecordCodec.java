@@ -0,0 +1,307 @@
+package legacy.service.implementation;
+
+import legacy.dto.Modif;
+import legacy.error.ErrorLevel;
+import legacy.hedge.HedgingPosition;
+import legacy.hedge.HedgingPositionStatusConst;
+import legacy.hedge.HedgingPositionTypeConst;
+import legacy.error.ARPSystemException;
+import legacy.persistence.FieldChange;
+import legacy.persistence.StorageActionEnum;
+
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * <p>
+ *     Title: legacy.service.implementation.HedgingPositionRecordCodec
+ * </p>
+ * <p>
+ *     Binary encoding of a {@link HedgingPosition} in the journal: primitives as is, a presence byte in front of
+ *     nullable values, strings as UTF-8, prices and quantity in FixedPointDecimal units and enums by ordinal
+ *     (constants may be added at the end only). The audited changes of the last modification are kept with their
+ *     before and after values, tagged with their type.
+ * </p>
+ */
+class HedgingPositionRecordCodec {
+
+	static final byte FORMAT_VERSION = 3;
+
+	private static final byte NULL_VALUE = 0;
+	private static final byte INTEGER_VALUE = 1;
+	private static final byte LONG_VALUE = 2;
+	private static final byte STRING_VALUE = 3;
+	private static final byte DATE_VALUE = 4;
+	private static final byte ENUM_VALUE = 5;
+	private static final byte BIG_INTEGER_VALUE = 6;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final HedgingPositionTypeConst[] TYPES = HedgingPositionTypeConst.values();
+	private static final HedgingPositionStatusConst[] STATUSES = HedgingPositionStatusConst.values();
+	private static final ErrorLevel[] ERROR_LEVELS = ErrorLevel.values();
+	private static final StorageActionEnum[] STORAGE_ACTIONS = StorageActionEnum.values();
+
+	private ByteBuffer buffer = ByteBuffer.allocate(512);
+
+	/**
+	 * @return the encoded record, between 0 and its limit, valid until the next call
+	 */
+	ByteBuffer encode(HedgingPosition hp) {
+		while (true) {
+			buffer.clear();
+			try {
+				write(buffer, hp);
+				buffer.flip();
+				return buffer;
+			} catch (BufferOverflowException e) {
+				buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+			}
+		}
+	}
+
+	private static void write(ByteBuffer out, HedgingPosition hp) {
+		out.put(FORMAT_VERSION);
+		putEnum(out, hp.getStorageUpdate());
+		out.putInt(hp.getId());
+		putDate(out, hp.getCreDate());
+		putDate(out, hp.getUpdateDate());
+		out.putInt(hp.getVersion());
+		out.putInt(hp.getUpdateVersion());
+		Modif modif = hp.getLastModification();
+		if (modif == null) {
+			out.put((byte) 0);
+		} else {
+			out.put((byte) 1);
+			out.putInt(modif.getId());
+			putDate(out, modif.getCreDate());
+			putString(out, modif.getAuditableClassName());
+			out.putInt(modif.getDTOID());
+			putDate(out, modif.getModificationDate());
+			putString(out, modif.getUser());
+			out.putInt(modif.getVersion());
+			List<FieldChange> changes = modif.getChanges();
+			if (changes == null) {
+				out.putInt(-1);
+			} else {
+				out.putInt(changes.size());
+				for (FieldChange change : changes) {
+					putString(out, change.getFieldName());
+					putValue(out, change.getBefore());
+					putValue(out, change.getAfter());
+				}
+			}
+		}
+		out.putInt(hp.getTransactionId());
+		putEnum(out, hp.getType());
+		putEnum(out, hp.getStatus());
+		putDate(out, hp.getValueDate());
+		putDate(out, hp.getNoticePeriodEndDate());
+		putString(out, hp.getCombck());
+		out.putInt(hp.getCodetyptkt());
+		putString(out, hp.getTransactionWay());
+		putEnum(out, hp.getErrorLevel());
+		putString(out, hp.getHedgeMsg());
+		out.putLong(hp.getPrxrefUnits());
+		out.putLong(hp.getBasprxUnits());
+		putDate(out, hp.getDaprx());
+		out.putLong(hp.getQuantityUnits());
+		putDate(out, hp.getDatefinthe());
+		BigInteger codtyptra = hp.getCodtyptra();
+		if (codtyptra == null) {
+			out.putInt(-1);
+		} else {
+			byte[] bytes = codtyptra.toByteArray();
+			out.putInt(bytes.length);
+			out.put(bytes);
+		}
+		putString(out, hp.getMsgdev());
+		putString(out, hp.getMsgerr());
+		Integer niverr = hp.getNiverr();
+		if (niverr == null) {
+			out.put((byte) 0);
+		} else {
+			out.put((byte) 1);
+			out.putInt(niverr);
+		}
+		putString(out, hp.getMsgusr());
+		putString(out, hp.getIkRtH());
+		putString(out, hp.getHedgingTransactionId());
+	}
+
+	/**
+	 * @param in
+	 * 			positioned on the record, read up to its end
+	 */
+	HedgingPosition decode(ByteBuffer in) {
+		byte version = in.get();
+		if (version != FORMAT_VERSION) {
+			throw new IllegalStateException("Unknown journal record format " + version);
+		}
+		HedgingPosition hp = new HedgingPosition();
+		hp.setStorageUpdate(getEnum(in, STORAGE_ACTIONS));
+		hp.setId(in.getInt());
+		hp.setCreDate(getDate(in));
+		hp.setUpdateDate(getDate(in));
+		hp.setVersion(in.getInt());
+		hp.setUpdateVersion(in.getInt());
+		if (in.get() != 0) {
+			Modif modif = new Modif();
+			modif.setId(in.getInt());
+			modif.setCreDate(getDate(in));
+			modif.setAuditableClassName(getString(in));
+			modif.setDTOID(in.getInt());
+			modif.setModificationDate(getDate(in));
+			modif.setUser(getString(in));
+			modif.setVersion(in.getInt());
+			int changeCount = in.getInt();
+			if (changeCount >= 0) {
+				List<FieldChange> changes = new ArrayList<FieldChange>(changeCount);
+				for (int i = 0; i < changeCount; i++) {
+					changes.add(new FieldChange(getString(in), getValue(in), getValue(in)));
+				}
+				modif.setChanges(changes);
+			}
+			hp.setLastModification(modif);
+		}
+		hp.setTransactionId(in.getInt());
+		hp.setType(getEnum(in, TYPES));
+		hp.setStatus(getEnum(in, STATUSES));
+		hp.setValueDate(getDate(in));
+		hp.setNoticePeriodEndDate(getDate(in));
+		hp.setCombck(getString(in));
+		hp.setCodetyptkt(in.getInt());
+		hp.setTransactionWay(getString(in));
+		hp.setErrorLevel(getEnum(in, ERROR_LEVELS));
+		hp.setHedgeMsg(getString(in));
+		hp.setPrxrefUnits(in.getLong());
+		hp.setBasprxUnits(in.getLong());
+		hp.setDaprx(getDate(in));
+		hp.setQuantityUnits(in.getLong());
+		hp.setDatefinthe(getDate(in));
+		int length = in.getInt();
+		if (length < 0) {
+			hp.setCodtyptra(null);
+		} else {
+			byte[] bytes = new byte[length];
+			in.get(bytes);
+			hp.setCodtyptra(new BigInteger(bytes));
+		}
+		hp.setMsgdev(getString(in));
+		hp.setMsgerr(getString(in));
+		hp.setNiverr(in.get() == 0 ? null : Integer.valueOf(in.getInt()));
+		hp.setMsgusr(getString(in));
+		hp.setIkRtH(getString(in));
+		hp.setHedgingTransactionId(getString(in));
+		return hp;
+	}
+
+	/**
+	 * the types of the audited fields only
+	 */
+	private static void putValue(ByteBuffer out, Object value) {
+		if (value == null) {
+			out.put(NULL_VALUE);
+		} else if (value instanceof Integer) {
+			out.put(INTEGER_VALUE);
+			out.putInt((Integer) value);
+		} else if (value instanceof Long) {
+			out.put(LONG_VALUE);
+			out.putLong((Long) value);
+		} else if (value instanceof String) {
+			out.put(STRING_VALUE);
+			putString(out, (String) value);
+		} else if (value instanceof Date) {
+			out.put(DATE_VALUE);
+			out.putLong(((Date) value).getTime());
+		} else if (value instanceof Enum) {
+			out.put(ENUM_VALUE);
+			putString(out, ((Enum<?>) value).getDeclaringClass().getName());
+			putString(out, ((Enum<?>) value).name());
+		} else if (value instanceof BigInteger) {
+			byte[] bytes = ((BigInteger) value).toByteArray();
+			out.put(BIG_INTEGER_VALUE);
+			out.putInt(bytes.length);
+			out.put(bytes);
+		} else {
+			throw new ARPSystemException("Cannot journal an audited value of " + value.getClass().getName());
+		}
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Object getValue(ByteBuffer in) {
+		byte tag = in.get();
+		switch (tag) {
+			case NULL_VALUE:
+				return null;
+			case INTEGER_VALUE:
+				return in.getInt();
+			case LONG_VALUE:
+				return in.getLong();
+			case STRING_VALUE:
+				return getString(in);
+			case DATE_VALUE:
+				return new Date(in.getLong());
+			case ENUM_VALUE:
+				String type = getString(in);
+				String name = getString(in);
+				try {
+					return Enum.valueOf((Class<? extends Enum>) Class.forName(type), name);
+				} catch (ClassNotFoundException e) {
+					throw new IllegalStateException("Unknown enum " + type + " in journal record", e);
+				}
+			case BIG_INTEGER_VALUE:
+				byte[] bytes = new byte[in.getInt()];
+				in.get(bytes);
+				return new BigInteger(bytes);
+			default:
+				throw new IllegalStateException("Unknown value tag " + tag + " in journal record");
+		}
+	}
+
+	private static void putEnum(ByteBuffer out, Enum<?> value) {
+		out.put(value == null ? 0 : (byte) (value.ordinal() + 1));
+	}
+
+	private static <E extends Enum<E>> E getEnum(ByteBuffer in, E[] values) {
+		int ordinal = in.get();
+		return ordinal == 0 ? null : values[ordinal - 1];
+	}
+
+	private static void putDate(ByteBuffer out, Date date) {
+		if (date == null) {
+			out.put((byte) 0);
+		} else {
+			out.put((byte) 1);
+			out.putLong(date.getTime());
+		}
+	}
+
+	private static Date getDate(ByteBuffer in) {
+		return in.get() == 0 ? null : new Date(in.getLong());
+	}
+
+	private static void putString(ByteBuffer out, String s) {
+		if (s == null) {
+			out.putInt(-1);
+		} else {
+			byte[] bytes = s.getBytes(UTF_8);
+			out.putInt(bytes.length);
+			out.put(bytes);
+		}
+	}
+
+	private static String getString(ByteBuffer in) {
+		int length = in.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, UTF_8);
+	}
+}
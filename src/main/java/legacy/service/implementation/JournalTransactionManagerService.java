@@ -0,0 +1,52 @@
+package legacy.service.implementation;
+
+import legacy.hedge.HedgingPosition;
+import legacy.persistence.ObjectDTO;
+import legacy.service.ITransactionManagerService;
+import legacy.service.Lifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ *     Title: legacy.service.implementation.JournalTransactionManagerService
+ * </p>
+ * <p>
+ *     Stores the positions in a {@link HedgingPositionJournal}, replayed when the service starts.
+ * </p>
+ */
+public class JournalTransactionManagerService implements ITransactionManagerService, Lifecycle {
+
+	private final HedgingPositionJournal journal;
+
+	public JournalTransactionManagerService(HedgingPositionJournal journal) {
+		this.journal = journal;
+	}
+
+	@Override
+	public <T extends ObjectDTO> T classStorageAction(HedgingPosition hp) {
+		journal.append(hp);
+		return (T) hp;
+	}
+
+	@Override
+	public List<HedgingPosition> classStorageActions(List<HedgingPosition> hps) {
+		journal.append(hps);
+		return new ArrayList<HedgingPosition>(hps);
+	}
+
+	public HedgingPositionJournal getJournal() {
+		return journal;
+	}
+
+	@Override
+	public void start() {
+		journal.open();
+	}
+
+	@Override
+	public void stop() {
+		journal.close();
+	}
+}
@@ -0,0 +1,110 @@
+package legacy.service.implementation;
+
+import com.google.common.util.concurrent.SettableFuture;
+import legacy.error.ARPSystemException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ *     Title: legacy.service.implementation.SingleFlight
+ * </p>
+ * <p>
+ *     Coalesces the concurrent calls for the same key: the first caller makes the call, the callers arriving
+ *     while it is in flight wait for it and get its result, or its failure. Nothing is kept once the call
+ *     returns. A caller does not wait longer than maxWait for a call in flight, it then makes its own.
+ * </p>
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentMap<K, SettableFuture<V>> inFlight = new ConcurrentHashMap<K, SettableFuture<V>>();
+	private final long maxWaitNanos;
+	private final AtomicLong sharedCount = new AtomicLong();
+	private final AtomicLong timeoutCount = new AtomicLong();
+
+	public SingleFlight(long maxWait, TimeUnit unit) {
+		this.maxWaitNanos = unit.toNanos(maxWait);
+	}
+
+	public V call(K key, Callable<V> call) {
+		SettableFuture<V> mine = SettableFuture.create();
+		SettableFuture<V> leader = inFlight.putIfAbsent(key, mine);
+		if (leader == null) {
+			return lead(key, mine, call);
+		}
+		try {
+			V value = leader.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+			sharedCount.incrementAndGet();
+			return value;
+		} catch (ExecutionException e) {
+			sharedCount.incrementAndGet();
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new ARPSystemException(cause);
+		} catch (TimeoutException e) {
+			timeoutCount.incrementAndGet();
+			return invoke(call);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ARPSystemException(e);
+		}
+	}
+
+	private V lead(K key, SettableFuture<V> mine, Callable<V> call) {
+		V value;
+		try {
+			value = invoke(call);
+		} catch (RuntimeException e) {
+			inFlight.remove(key, mine);
+			mine.setException(e);
+			throw e;
+		} catch (Error e) {
+			inFlight.remove(key, mine);
+			mine.setException(e);
+			throw e;
+		}
+		// the late callers make a fresh call
+		inFlight.remove(key, mine);
+		mine.set(value);
+		return value;
+	}
+
+	private V invoke(Callable<V> call) {
+		try {
+			return call.call();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new ARPSystemException(e);
+		}
+	}
+
+	/**
+	 * @return the number of calls answered by a call already in flight
+	 */
+	public long getSharedCount() {
+		return sharedCount.get();
+	}
+
+	/**
+	 * @return the number of callers that gave up waiting and made their own call
+	 */
+	public long getTimeoutCount() {
+		return timeoutCount.get();
+	}
+
+	public int getInFlightCount() {
+		return inFlight.size();
+	}
+}
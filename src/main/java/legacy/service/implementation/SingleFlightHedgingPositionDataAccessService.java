@@ -0,0 +1,98 @@
+package legacy.service.implementation;
+
+import legacy.dto.Transaction;
+import legacy.service.IHedgingPositionDataAccessService;
+import legacy.service.Lifecycle;
+import legacy.service.TradingOrder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *     Title: legacy.service.implementation.SingleFlightHedgingPositionDataAccessService
+ * </p>
+ * <p>
+ *     Shares one getTrade, or one getHedgingTransactionIdByTransactionId, in flight between the concurrent
+ *     callers asking for the same transaction, see {@link SingleFlight}. Each method has its own flights. The
+ *     trades handed out are shared, they must not be modified.
+ * </p>
+ */
+public class SingleFlightHedgingPositionDataAccessService implements IHedgingPositionDataAccessService, Lifecycle {
+
+	public static final long DEFAULT_MAX_WAIT_SECONDS = 10;
+
+	private final IHedgingPositionDataAccessService delegate;
+	private final SingleFlight<Integer, TradingOrder> trades;
+	private final SingleFlight<Integer, String> hedgingTransactionIds;
+
+	public SingleFlightHedgingPositionDataAccessService(IHedgingPositionDataAccessService delegate) {
+		this(delegate, DEFAULT_MAX_WAIT_SECONDS, TimeUnit.SECONDS);
+	}
+
+	public SingleFlightHedgingPositionDataAccessService(IHedgingPositionDataAccessService delegate, long maxWait, TimeUnit unit) {
+		this.delegate = delegate;
+		this.trades = new SingleFlight<Integer, TradingOrder>(maxWait, unit);
+		this.hedgingTransactionIds = new SingleFlight<Integer, String>(maxWait, unit);
+	}
+
+	@Override
+	public String getControl() {
+		return delegate.getControl();
+	}
+
+	@Override
+	public long getPriceQuote(long dId, Transaction transaction) {
+		return delegate.getPriceQuote(dId, transaction);
+	}
+
+	@Override
+	public String getHedgingPositionIdByPositionKey(String positionKey) {
+		return delegate.getHedgingPositionIdByPositionKey(positionKey);
+	}
+
+	@Override
+	public String getHedgingTransactionIdByTransactionId(final int id) {
+		return hedgingTransactionIds.call(id, new Callable<String>() {
+			@Override
+			public String call() {
+				return delegate.getHedgingTransactionIdByTransactionId(id);
+			}
+		});
+	}
+
+	@Override
+	public TradingOrder getTrade(final Integer id) {
+		if (id == null) {
+			return delegate.getTrade(null);
+		}
+		return trades.call(id, new Callable<TradingOrder>() {
+			@Override
+			public TradingOrder call() {
+				return delegate.getTrade(id);
+			}
+		});
+	}
+
+	@Override
+	public void start() {
+		if (delegate instanceof Lifecycle) {
+			((Lifecycle) delegate).start();
+		}
+	}
+
+	@Override
+	public void stop() {
+		if (delegate instanceof Lifecycle) {
+			((Lifecycle) delegate).stop();
+		}
+	}
+
+	public SingleFlight<Integer, TradingOrder> getTradeFlights() {
+		return trades;
+	}
+
+	public SingleFlight<Integer, String> getHedgingTransactionIdFlights() {
+		return hedgingTransactionIds;
+	}
+}
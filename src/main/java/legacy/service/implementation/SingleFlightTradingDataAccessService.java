@@ -0,0 +1,72 @@
+package legacy.service.implementation;
+
+import legacy.dto.Transaction;
+import legacy.service.ITradingDataAccessService;
+import legacy.service.Lifecycle;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *     Title: legacy.service.implementation.SingleFlightTradingDataAccessService
+ * </p>
+ * <p>
+ *     Shares one getTransactionById in flight between the concurrent callers asking for the same transaction,
+ *     see {@link SingleFlight}. The transactions handed out are shared, they must not be modified.
+ * </p>
+ */
+public class SingleFlightTradingDataAccessService implements ITradingDataAccessService, Lifecycle {
+
+	public static final long DEFAULT_MAX_WAIT_SECONDS = 10;
+
+	private final ITradingDataAccessService delegate;
+	private final SingleFlight<Integer, Transaction> transactions;
+
+	public SingleFlightTradingDataAccessService(ITradingDataAccessService delegate) {
+		this(delegate, DEFAULT_MAX_WAIT_SECONDS, TimeUnit.SECONDS);
+	}
+
+	public SingleFlightTradingDataAccessService(ITradingDataAccessService delegate, long maxWait, TimeUnit unit) {
+		this.delegate = delegate;
+		this.transactions = new SingleFlight<Integer, Transaction>(maxWait, unit);
+	}
+
+	@Override
+	public Transaction getTransactionById(final int id) {
+		return transactions.call(id, new Callable<Transaction>() {
+			@Override
+			public Transaction call() {
+				return delegate.getTransactionById(id);
+			}
+		});
+	}
+
+	@Override
+	public int getOptionalIdFromTransaction(Transaction transaction) {
+		return delegate.getOptionalIdFromTransaction(transaction);
+	}
+
+	@Override
+	public long computeDPSOnTheGrid(Long id) {
+		return delegate.computeDPSOnTheGrid(id);
+	}
+
+	@Override
+	public void start() {
+		if (delegate instanceof Lifecycle) {
+			((Lifecycle) delegate).start();
+		}
+	}
+
+	@Override
+	public void stop() {
+		if (delegate instanceof Lifecycle) {
+			((Lifecycle) delegate).stop();
+		}
+	}
+
+	public SingleFlight<Integer, Transaction> getTransactionFlights() {
+		return transactions;
+	}
+}
@@ -3,20 +3,89 @@ package legacy.service.implementation;
 import legacy.dto.DateRange;
 import legacy.dto.Modif;
 import legacy.dto.Transaction;
+import legacy.error.ARPSystemException;
+import legacy.error.ExceptionSeverityConst;
 import legacy.service.ITradingDataAccessService;
+import legacy.service.Lifecycle;
 import legacy.service.TransactionWay;
 
+import java.util.Arrays;
 import java.util.Date;
 
-public class TradingDataAccessServiceImpl implements ITradingDataAccessService {
+public class TradingDataAccessServiceImpl implements ITradingDataAccessService, Lifecycle {
+
+	private final DataCenterRouter router = new DataCenterRouter(Arrays.asList(DataCenter.values()), new DataCenterRouter.Probe() {
+		@Override
+		public boolean isAvailable(DataCenter dataCenter) {
+			return enableDataCenter(dataCenter);
+		}
+	});
+
+	private final TradingSessionPool sessionPool;
+
+	public TradingDataAccessServiceImpl() {
+		this(TradingSessionPool.DEFAULT_MAX_SIZE, TradingSessionPool.DEFAULT_IDLE_TIMEOUT_MILLIS,
+				TradingSessionPool.DEFAULT_BORROW_TIMEOUT_MILLIS);
+	}
+
+	/**
+	 * @see TradingSessionPool#TradingSessionPool(TradingSessionPool.SessionFactory, int, long, long)
+	 */
+	public TradingDataAccessServiceImpl(int maxSessions, long idleTimeoutMillis, long borrowTimeoutMillis) {
+		sessionPool = new TradingSessionPool(new TradingSessionPool.SessionFactory() {
+			@Override
+			public TradingSession open() {
+				return openSession();
+			}
+
+			@Override
+			public boolean isHealthy(TradingSession session) {
+				// sessions to a fallback data center are dropped once the preferred one is back
+				return !session.isClosed() && session.getDataCenter() == router.route();
+			}
+		}, maxSessions, idleTimeoutMillis, borrowTimeoutMillis);
+	}
+
+	public DataCenterRouter getRouter() {
+		return router;
+	}
+
+	public TradingSessionPool getSessionPool() {
+		return sessionPool;
+	}
+
+	@Override
+	public void start() {
+
+	}
+
+	@Override
+	public void stop() {
+		sessionPool.shutdown();
+		router.shutdown();
+	}
 
 	@Override
 	public Transaction getTransactionById(int id) {
-		System.out.println("[remote] Enabling transaction to data center FX01 (Alabama, USA). Please wait.");
-		synchronizationTimer(2);
-		System.out.println("[remote] FX01 not responding");
-		System.out.println("[remote] Enabling transaction to data center FX07 (Honk-Kong). Please wait.");
-		synchronizationTimer(3);
+		TradingSession session = sessionPool.borrow();
+		try {
+			Transaction transaction = queryTransaction(session, id);
+			sessionPool.release(session);
+			return transaction;
+		} catch (RuntimeException e) {
+			sessionPool.invalidate(session);
+			throw e;
+		}
+	}
+
+	private TradingSession openSession() {
+		DataCenter dataCenter = router.route();
+		while (!enableDataCenter(dataCenter)) {
+			if (!router.markDown(dataCenter)) {
+				throw new ARPSystemException("No trading data center available", ExceptionSeverityConst.HIGH);
+			}
+			dataCenter = router.route();
+		}
 		System.out.println("[remote] Connection under way.");
 		synchronizationTimer(1);
 		System.out.println("[remote] Connection established.");
@@ -24,6 +93,10 @@ public class TradingDataAccessServiceImpl implements ITradingDataAccessService {
 		System.out.println("[remote] Checking Credentials.");
 		synchronizationTimer(1);
 		System.out.println("[remote] All systems go.");
+		return new TradingSession(dataCenter);
+	}
+
+	private Transaction queryTransaction(TradingSession session, int id) {
 		Transaction transaction = new Transaction();
 		transaction.setCreDate(new Date());
 		Modif modif = new Modif();
@@ -54,6 +127,16 @@ public class TradingDataAccessServiceImpl implements ITradingDataAccessService {
 		return transaction;
 	}
 
+	private boolean enableDataCenter(DataCenter dataCenter) {
+		System.out.println("[remote] Enabling transaction to data center " + dataCenter + " (" + dataCenter.getLocation() + "). Please wait.");
+		synchronizationTimer(dataCenter.getConnectionDelayInSeconds());
+		if (!dataCenter.isResponding()) {
+			System.out.println("[remote] " + dataCenter + " not responding");
+			return false;
+		}
+		return true;
+	}
+
 	private void synchronizationTimer(int countInSeconds) {
 		try {
 			Thread.sleep(countInSeconds * 1000);
@@ -0,0 +1,45 @@
+package legacy.service.implementation;
+
+/**
+ * <p>
+ *     Title: legacy.service.implementation.TradingSession
+ * </p>
+ * <p>an authenticated connection to a trading data center, owned by a {@link TradingSessionPool}</p>
+ */
+public class TradingSession {
+
+	private final DataCenter dataCenter;
+	private final long createdAt;
+	private volatile long lastUsedAt;
+	private volatile boolean closed;
+
+	public TradingSession(DataCenter dataCenter) {
+		this.dataCenter = dataCenter;
+		this.createdAt = System.currentTimeMillis();
+		this.lastUsedAt = createdAt;
+	}
+
+	public DataCenter getDataCenter() {
+		return dataCenter;
+	}
+
+	public long getCreatedAt() {
+		return createdAt;
+	}
+
+	public long getLastUsedAt() {
+		return lastUsedAt;
+	}
+
+	void touch() {
+		lastUsedAt = System.currentTimeMillis();
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	void close() {
+		closed = true;
+	}
+}
@@ -0,0 +1,143 @@
+package legacy.service.implementation;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import legacy.error.ARPSystemException;
+import legacy.error.ExceptionSeverityConst;
+
+import java.util.Iterator;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ *     Title: legacy.service.implementation.TradingSessionPool
+ * </p>
+ * <p>
+ *     Pool of long lived trading sessions: the connection and the credential check are done once per session,
+ *     a lookup only pays for its query. At most maxSize sessions are open, a session is health checked before
+ *     being handed out and closed after idleTimeoutMillis without use.
+ * </p>
+ */
+public class TradingSessionPool {
+
+	public static final int DEFAULT_MAX_SIZE = 8;
+	public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+	public static final long DEFAULT_BORROW_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+	private static Logger LOGGER = Logger.getLogger(TradingSessionPool.class.getName());
+
+	public interface SessionFactory {
+		/**
+		 * connect and authenticate a new session
+		 */
+		TradingSession open();
+
+		boolean isHealthy(TradingSession session);
+	}
+
+	private final SessionFactory factory;
+	private final long idleTimeoutMillis;
+	private final long borrowTimeoutMillis;
+	private final Semaphore available;
+	// most recently released first, so that the extra sessions of a burst are the ones going idle
+	private final BlockingDeque<TradingSession> idle = new LinkedBlockingDeque<TradingSession>();
+	private final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("trading-session-evictor-%d").setDaemon(true).build());
+
+	public TradingSessionPool(SessionFactory factory) {
+		this(factory, DEFAULT_MAX_SIZE, DEFAULT_IDLE_TIMEOUT_MILLIS, DEFAULT_BORROW_TIMEOUT_MILLIS);
+	}
+
+	public TradingSessionPool(SessionFactory factory, int maxSize, long idleTimeoutMillis, long borrowTimeoutMillis) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("maxSize must be at least 1: " + maxSize);
+		}
+		this.factory = factory;
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		this.borrowTimeoutMillis = borrowTimeoutMillis;
+		this.available = new Semaphore(maxSize, true);
+		long period = Math.max(1, idleTimeoutMillis / 2);
+		evictor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				evictIdleSessions();
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return a healthy session, to be given back with {@link #release(TradingSession)} or
+	 * {@link #invalidate(TradingSession)}
+	 */
+	public TradingSession borrow() {
+		try {
+			if (!available.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				throw new ARPSystemException("No trading session available after " + borrowTimeoutMillis + " ms",
+						ExceptionSeverityConst.HIGH);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ARPSystemException(e);
+		}
+		try {
+			TradingSession session;
+			while ((session = idle.pollFirst()) != null) {
+				if (factory.isHealthy(session)) {
+					session.touch();
+					return session;
+				}
+				session.close();
+			}
+			session = factory.open();
+			session.touch();
+			return session;
+		} catch (RuntimeException e) {
+			available.release();
+			throw e;
+		}
+	}
+
+	public void release(TradingSession session) {
+		session.touch();
+		idle.offerFirst(session);
+		available.release();
+	}
+
+	/**
+	 * the session broke while in use, close it instead of giving it back
+	 */
+	public void invalidate(TradingSession session) {
+		session.close();
+		available.release();
+	}
+
+	public int getIdleCount() {
+		return idle.size();
+	}
+
+	void evictIdleSessions() {
+		long deadline = System.currentTimeMillis() - idleTimeoutMillis;
+		Iterator<TradingSession> sessions = idle.descendingIterator();
+		while (sessions.hasNext()) {
+			TradingSession session = sessions.next();
+			if (session.getLastUsedAt() < deadline && idle.remove(session)) {
+				LOGGER.log(Level.FINE, "Closing trading session to " + session.getDataCenter() + ", idle since " + session.getLastUsedAt());
+				session.close();
+			}
+		}
+	}
+
+	public void shutdown() {
+		evictor.shutdownNow();
+		TradingSession session;
+		while ((session = idle.pollFirst()) != null) {
+			session.close();
+		}
+	}
+}
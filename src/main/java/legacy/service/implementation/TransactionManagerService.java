@@ -4,6 +4,9 @@ import legacy.hedge.HedgingPosition;
 import legacy.persistence.ObjectDTO;
 import legacy.service.ITransactionManagerService;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class TransactionManagerService implements ITransactionManagerService {
 
 	@Override
@@ -11,4 +14,9 @@ public class TransactionManagerService implements ITransactionManagerService {
 		return (T) hp;
 	}
 
+	@Override
+	public List<HedgingPosition> classStorageActions(List<HedgingPosition> hps) {
+		return new ArrayList<HedgingPosition>(hps);
+	}
+
 }
@@ -0,0 +1,252 @@
+package legacy.service.implementation;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import legacy.error.ARPSystemException;
+import legacy.hedge.HedgingPosition;
+import legacy.persistence.BaseDTO;
+import legacy.persistence.ObjectDTO;
+import legacy.persistence.StorageActionEnum;
+import legacy.service.ITransactionManagerService;
+import legacy.service.Lifecycle;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ *     Title: legacy.service.implementation.WriteBehindTransactionManagerService
+ * </p>
+ * <p>
+ *     Write-behind storage in front of another {@link ITransactionManagerService}. The positions are queued and
+ *     stored by group commits of at most maxBatchSize positions, a group leaves at the latest maxLatencyMillis
+ *     after its first position was queued. Successive changes of the same position (same non zero id) waiting
+ *     in the queue are coalesced into one write of the latest state. Groups are committed one after the other,
+ *     in queuing order. {@link #classStorageAction(HedgingPosition)} waits for the commit of the position,
+ *     {@link #store(HedgingPosition)} returns at once with the future of the commit.
+ * </p>
+ */
+public class WriteBehindTransactionManagerService implements ITransactionManagerService, Lifecycle {
+
+	public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+	public static final long DEFAULT_MAX_LATENCY_MILLIS = 50;
+
+	private static Logger LOGGER = Logger.getLogger(WriteBehindTransactionManagerService.class.getName());
+
+	private final ITransactionManagerService delegate;
+	private final int maxBatchSize;
+	private final long maxLatencyMillis;
+	private final ScheduledExecutorService latencyTimer = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("write-behind-latency-%d").setDaemon(true).build());
+	// a single writer keeps the groups in order
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(
+			new ThreadFactoryBuilder().setNameFormat("write-behind-writer-%d").setDaemon(true).build());
+
+	private Map<Object, PendingWrite> pending = new LinkedHashMap<Object, PendingWrite>();
+	private ScheduledFuture<?> latencyFlush;
+
+	public WriteBehindTransactionManagerService(ITransactionManagerService delegate) {
+		this(delegate, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_LATENCY_MILLIS);
+	}
+
+	public WriteBehindTransactionManagerService(ITransactionManagerService delegate, int maxBatchSize, long maxLatencyMillis) {
+		if (maxBatchSize < 1) {
+			throw new IllegalArgumentException("maxBatchSize must be at least 1: " + maxBatchSize);
+		}
+		this.delegate = delegate;
+		this.maxBatchSize = maxBatchSize;
+		this.maxLatencyMillis = maxLatencyMillis;
+	}
+
+	/**
+	 * queue the position and wait for the group holding it to be committed, the failure of the group is thrown
+	 *
+	 * @return the stored position
+	 */
+	@Override
+	public <T extends ObjectDTO> T classStorageAction(HedgingPosition hp) {
+		return (T) awaitDurable(store(hp));
+	}
+
+	/**
+	 * queue the positions and wait for them to be stored
+	 */
+	@Override
+	public List<HedgingPosition> classStorageActions(List<HedgingPosition> hps) {
+		List<ListenableFuture<HedgingPosition>> futures = new ArrayList<ListenableFuture<HedgingPosition>>(hps.size());
+		for (HedgingPosition hp : hps) {
+			futures.add(store(hp));
+		}
+		flush();
+		List<HedgingPosition> stored = new ArrayList<HedgingPosition>(futures.size());
+		for (ListenableFuture<HedgingPosition> future : futures) {
+			stored.add(awaitDurable(future));
+		}
+		return stored;
+	}
+
+	private static HedgingPosition awaitDurable(ListenableFuture<HedgingPosition> durable) {
+		try {
+			return durable.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new ARPSystemException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ARPSystemException(e);
+		}
+	}
+
+	/**
+	 * queue a copy of the position, taken now: later changes of hp are not stored unless it is queued again
+	 *
+	 * @return completed with the stored position once the group holding it is committed
+	 */
+	public ListenableFuture<HedgingPosition> store(HedgingPosition hp) {
+		SettableFuture<HedgingPosition> durable = SettableFuture.create();
+		HedgingPosition snapshot = new HedgingPosition(hp);
+		List<PendingWrite> group = null;
+		synchronized (this) {
+			// positions without id yet cannot be told apart, they are never coalesced
+			Object key = hp.getId() == BaseDTO.NO_ID ? new Object() : Integer.valueOf(hp.getId());
+			PendingWrite write = pending.get(key);
+			if (write == null) {
+				write = new PendingWrite(snapshot);
+				pending.put(key, write);
+			} else {
+				write.coalesce(snapshot);
+			}
+			write.durables.add(durable);
+			if (pending.size() >= maxBatchSize) {
+				group = drain();
+			} else if (pending.size() == 1 && latencyFlush == null) {
+				latencyFlush = latencyTimer.schedule(new Runnable() {
+					@Override
+					public void run() {
+						flush();
+					}
+				}, maxLatencyMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+		if (group != null) {
+			commit(group);
+		}
+		return durable;
+	}
+
+	/**
+	 * commit the queued positions without waiting for the group to fill up
+	 */
+	public void flush() {
+		List<PendingWrite> group;
+		synchronized (this) {
+			group = drain();
+		}
+		if (!group.isEmpty()) {
+			commit(group);
+		}
+	}
+
+	/**
+	 * @return the number of writes waiting in the queue, coalesced changes count once
+	 */
+	public synchronized int getPendingCount() {
+		return pending.size();
+	}
+
+	private List<PendingWrite> drain() {
+		if (latencyFlush != null) {
+			latencyFlush.cancel(false);
+			latencyFlush = null;
+		}
+		List<PendingWrite> group = new ArrayList<PendingWrite>(pending.values());
+		pending = new LinkedHashMap<Object, PendingWrite>();
+		return group;
+	}
+
+	private void commit(final List<PendingWrite> group) {
+		writer.execute(new Runnable() {
+			@Override
+			public void run() {
+				List<HedgingPosition> positions = new ArrayList<HedgingPosition>(group.size());
+				for (PendingWrite write : group) {
+					positions.add(write.position);
+				}
+				try {
+					List<HedgingPosition> stored = delegate.classStorageActions(positions);
+					for (int i = 0; i < group.size(); i++) {
+						for (SettableFuture<HedgingPosition> durable : group.get(i).durables) {
+							durable.set(stored.get(i));
+						}
+					}
+				} catch (RuntimeException e) {
+					LOGGER.log(Level.SEVERE, "Cannot store group of " + group.size() + " positions", e);
+					for (PendingWrite write : group) {
+						for (SettableFuture<HedgingPosition> durable : write.durables) {
+							durable.setException(e);
+						}
+					}
+				}
+			}
+		});
+	}
+
+	@Override
+	public void start() {
+		if (delegate instanceof Lifecycle) {
+			((Lifecycle) delegate).start();
+		}
+	}
+
+	/**
+	 * commit what is queued, wait for the writer to finish and stop the storage behind
+	 */
+	@Override
+	public void stop() {
+		flush();
+		latencyTimer.shutdownNow();
+		writer.shutdown();
+		try {
+			if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+				LOGGER.log(Level.SEVERE, "Positions still waiting to be stored after 30 seconds");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (delegate instanceof Lifecycle) {
+			((Lifecycle) delegate).stop();
+		}
+	}
+
+	private static class PendingWrite {
+		private HedgingPosition position;
+		private final List<SettableFuture<HedgingPosition>> durables = new ArrayList<SettableFuture<HedgingPosition>>(1);
+
+		private PendingWrite(HedgingPosition position) {
+			this.position = position;
+		}
+
+		/**
+		 * the latest state wins, but a position not created yet must still be created
+		 */
+		private void coalesce(HedgingPosition latest) {
+			if (position.getStorageUpdate() == StorageActionEnum.CREATE) {
+				latest.setStorageUpdate(StorageActionEnum.CREATE);
+			}
+			position = latest;
+		}
+	}
+}
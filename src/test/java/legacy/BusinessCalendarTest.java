@@ -0,0 +1,71 @@
+package legacy;
+
+import legacy.dto.DayTypeScheme;
+import legacy.error.ARPSystemException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class BusinessCalendarTest {
+
+    private static final String HOLIDAYS = "# labour day\n"
+            + "PARIS 2019-05-01\n"
+            + "\n"
+            + "PARIS 2019-12-25\n"
+            + "LONDON 2019-12-26\n";
+
+    private BusinessCalendar paris() throws IOException {
+        return BusinessCalendar.load(new StringReader(HOLIDAYS), 2000, 2030).get("PARIS");
+    }
+
+    @Test
+    public void should_load_the_calendars_of_the_holiday_file() throws IOException {
+        Map<String, BusinessCalendar> calendars = BusinessCalendar.load(new StringReader(HOLIDAYS), 2000, 2030);
+
+        assertThat(calendars.keySet()).containsOnly("PARIS", "LONDON");
+        assertThat(calendars.get("PARIS").isBusinessDay(EpochDay.of(2019, 5, 1))).isFalse();
+        assertThat(calendars.get("PARIS").isBusinessDay(EpochDay.of(2019, 12, 26))).isTrue();
+        assertThat(calendars.get("LONDON").isBusinessDay(EpochDay.of(2019, 12, 26))).isFalse();
+        assertThat(calendars.get("LONDON").isBusinessDay(EpochDay.of(2019, 12, 28))).isFalse();
+        // outside the precomputed years only the week-ends are off
+        assertThat(calendars.get("PARIS").isBusinessDay(EpochDay.of(2040, 5, 1))).isTrue();
+        assertThat(calendars.get("PARIS").nextBusinessDay(EpochDay.of(2030, 12, 31))).isEqualTo(EpochDay.of(2031, 1, 1));
+    }
+
+    @Test(expected = ARPSystemException.class)
+    public void should_reject_a_bad_date() throws IOException {
+        BusinessCalendar.load(new StringReader("PARIS 2019-02-30\n"), 2000, 2030);
+    }
+
+    @Test(expected = ARPSystemException.class)
+    public void should_reject_a_holiday_file_without_default_calendar() throws IOException {
+        BusinessCalendar.getDefault(BusinessCalendar.load(new StringReader(HOLIDAYS), 2000, 2030), "holidays.txt");
+    }
+
+    @Test
+    public void should_roll_business_days_and_weeks() throws IOException {
+        BusinessCalendar paris = paris();
+
+        assertThat(paris.roll(EpochDay.of(2019, 4, 30), 1, DayTypeScheme.D)).isEqualTo(EpochDay.of(2019, 5, 2));
+        assertThat(paris.roll(EpochDay.of(2019, 5, 2), -1, DayTypeScheme.D)).isEqualTo(EpochDay.of(2019, 4, 30));
+        assertThat(paris.roll(EpochDay.of(2019, 5, 3), 1, DayTypeScheme.D)).isEqualTo(EpochDay.of(2019, 5, 6));
+        assertThat(paris.roll(EpochDay.of(2019, 4, 24), 1, DayTypeScheme.W)).isEqualTo(EpochDay.of(2019, 5, 2));
+    }
+
+    @Test
+    public void should_roll_months_to_the_end_of_the_month_modified_following() throws IOException {
+        BusinessCalendar paris = paris();
+
+        assertThat(paris.roll(EpochDay.of(2019, 1, 31), 1, DayTypeScheme.M)).isEqualTo(EpochDay.of(2019, 2, 28));
+        assertThat(paris.roll(EpochDay.of(2019, 3, 29), 1, DayTypeScheme.M)).isEqualTo(EpochDay.of(2019, 4, 29));
+        // August 31 is a saturday, September 2 the following business day
+        assertThat(paris.roll(EpochDay.of(2019, 7, 31), 1, DayTypeScheme.M)).isEqualTo(EpochDay.of(2019, 8, 30));
+        assertThat(paris.roll(EpochDay.of(2019, 1, 31), 1, DayTypeScheme.Q)).isEqualTo(EpochDay.of(2019, 4, 30));
+        assertThat(paris.roll(EpochDay.of(2020, 2, 29), 1, DayTypeScheme.Y)).isEqualTo(EpochDay.of(2021, 2, 26));
+        assertThat(paris.roll(EpochDay.of(2019, 3, 31), -1, DayTypeScheme.M)).isEqualTo(EpochDay.of(2019, 2, 28));
+    }
+}
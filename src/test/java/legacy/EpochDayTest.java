@@ -0,0 +1,87 @@
+package legacy;
+
+import legacy.dto.DateRange;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class EpochDayTest {
+
+    private static final TimeZone PARIS = TimeZone.getTimeZone("Europe/Paris");
+    private final EpochDay days = new EpochDay(PARIS);
+
+    private long millis(final int year, final int month, final int day, final int hour, final int minute) {
+        Calendar calendar = new GregorianCalendar(PARIS);
+        calendar.clear();
+        calendar.set(year, month - 1, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+
+    @Test
+    public void should_number_the_days_in_the_time_zone() {
+        assertThat(days.toEpochDay(millis(1970, 1, 1, 0, 0))).isEqualTo(0);
+        assertThat(days.toEpochDay(millis(1969, 12, 31, 23, 59))).isEqualTo(-1);
+        // summer time starts that day, 00:30 in Paris is still March 30 in UTC
+        assertThat(days.toEpochDay(millis(2019, 3, 31, 23, 30))).isEqualTo(EpochDay.of(2019, 3, 31));
+        assertThat(days.toEpochDay(millis(2019, 3, 31, 0, 30))).isEqualTo(EpochDay.of(2019, 3, 31));
+        assertThat(days.toMillis(EpochDay.of(2019, 3, 31))).isEqualTo(millis(2019, 3, 31, 0, 0));
+        assertThat(days.toMillis(EpochDay.of(2019, 10, 27))).isEqualTo(millis(2019, 10, 27, 0, 0));
+    }
+
+    @Test
+    public void should_convert_civil_dates() {
+        assertThat(EpochDay.of(1970, 1, 1)).isEqualTo(0);
+        assertThat(EpochDay.of(2000, 3, 1)).isEqualTo(11017);
+        assertThat(EpochDay.of(1969, 12, 31)).isEqualTo(-1);
+        assertThat(EpochDay.year(EpochDay.of(2024, 12, 31))).isEqualTo(2024);
+        assertThat(EpochDay.year(EpochDay.of(2025, 1, 1))).isEqualTo(2025);
+        assertThat(EpochDay.year(-1)).isEqualTo(1969);
+        assertThat(EpochDay.dayOfWeek(EpochDay.of(2019, 3, 31))).isEqualTo(EpochDay.SUNDAY);
+        assertThat(EpochDay.dayOfWeek(EpochDay.of(1969, 12, 29))).isEqualTo(EpochDay.MONDAY);
+    }
+
+    @Test
+    public void should_compare_days() {
+        Date morning = new Date(millis(2019, 3, 31, 0, 30));
+        Date evening = new Date(millis(2019, 3, 31, 23, 30));
+
+        assertThat(days.isSameDay(morning, evening)).isTrue();
+        assertThat(days.isSameDay(morning, new Date(millis(2020, 3, 31, 0, 30)))).isFalse();
+        assertThat(days.isSameDay(null, null)).isTrue();
+        assertThat(days.isSameDay(morning, null)).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void should_keep_the_historical_date_comparison() {
+        Date now = new Date();
+        long first = new Date(0, 0, 1).getTime();
+        for (int i = 0; i < 4000; i++) {
+            Date d1 = new Date(first + i * EpochDay.MILLIS_PER_DAY);
+            Date d2 = new Date(first + (i + i % 3) * EpochDay.MILLIS_PER_DAY);
+            boolean historical = d1.getDay() == d2.getDay() && d1.getYear() == d2.getDay() && d1.getMonth() == d2.getDay();
+            assertThat(DateTimeUtils.compareDate(d1, d2)).isEqualTo(historical);
+        }
+        assertThat(DateTimeUtils.compareDate(now, now)).isFalse();
+        assertThat(DateTimeUtils.compareDate(null, null)).isTrue();
+        assertThat(DateTimeUtils.compareDate(now, null)).isFalse();
+    }
+
+    @Test
+    public void should_check_ranges() {
+        DateRange range = new DateRange();
+        range.setStart(new Date());
+        range.setEnd(new Date(System.currentTimeMillis() + 2 * EpochDay.MILLIS_PER_DAY));
+
+        assertThat(range.contains(new Date(System.currentTimeMillis() + EpochDay.MILLIS_PER_DAY))).isTrue();
+        assertThat(range.contains(new Date(System.currentTimeMillis() - 2 * EpochDay.MILLIS_PER_DAY))).isFalse();
+        assertThat(range.isSingleDay()).isFalse();
+        range.setEnd(null);
+        assertThat(range.contains(new Date(System.currentTimeMillis() + 300 * EpochDay.MILLIS_PER_DAY))).isTrue();
+    }
+}
@@ -0,0 +1,51 @@
+package legacy;
+
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class FixedPointDecimalTest {
+
+    @Test
+    public void should_compute_with_four_decimals() {
+        long price = FixedPointDecimal.fromDouble(97.0);
+        long fxPrice = FixedPointDecimal.fromDouble(1.23456);
+
+        assertThat(fxPrice).isEqualTo(12346L);
+        assertThat(FixedPointDecimal.multiply(price, fxPrice)).isEqualTo(FixedPointDecimal.fromDouble(119.7562));
+        assertThat(FixedPointDecimal.divide(FixedPointDecimal.fromLong(2), FixedPointDecimal.fromLong(3))).isEqualTo(6667L);
+        assertThat(FixedPointDecimal.divide(FixedPointDecimal.fromLong(-2), FixedPointDecimal.fromLong(3))).isEqualTo(-6667L);
+        assertThat(FixedPointDecimal.round(12345L, 2)).isEqualTo(12300L);
+        assertThat(FixedPointDecimal.round(-12350L, 2)).isEqualTo(-12400L);
+    }
+
+    @Test
+    public void should_print_and_parse_like_a_double() {
+        assertThat(FixedPointDecimal.toString(FixedPointDecimal.fromLong(378))).isEqualTo(String.valueOf(378.0));
+        assertThat(FixedPointDecimal.toString(10500L)).isEqualTo(String.valueOf(1.05));
+        assertThat(FixedPointDecimal.toString(-5L)).isEqualTo("-0.0005");
+        assertThat(FixedPointDecimal.parse("378.0")).isEqualTo(3780000L);
+        assertThat(FixedPointDecimal.parse("-0.00015")).isEqualTo(-2L);
+        assertThat(FixedPointDecimal.parse("1.0E7")).isEqualTo(FixedPointDecimal.fromLong(10000000));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void should_detect_overflows() {
+        FixedPointDecimal.multiply(FixedPointDecimal.fromLong(Long.MAX_VALUE / 100000), FixedPointDecimal.fromLong(100000));
+    }
+
+    @Test
+    public void should_reject_the_doubles_out_of_range() {
+        double limit = (double) (1L << 53) / FixedPointDecimal.ONE;
+        assertThat(FixedPointDecimal.fromDouble(Math.nextAfter(limit, 0))).isEqualTo(Math.round(Math.nextAfter(limit, 0) * FixedPointDecimal.ONE));
+        for (double value : new double[] {Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, limit, -limit, 1e300}) {
+            try {
+                FixedPointDecimal.fromDouble(value);
+                fail("accepted " + value);
+            } catch (ArithmeticException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package legacy;
+
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void should_give_the_percentiles_within_two_percent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertThat(histogram.getTotalCount()).isEqualTo(10000);
+        assertThat(histogram.getMaxValue()).isEqualTo(10000000);
+        assertThat((double) histogram.getValueAtPercentile(50)).isGreaterThanOrEqualTo(5000000).isLessThan(5000000 * 1.016);
+        assertThat((double) histogram.getValueAtPercentile(99)).isGreaterThanOrEqualTo(9900000).isLessThan(9900000 * 1.016);
+        assertThat(histogram.getValueAtPercentile(99.99)).isEqualTo(10000000);
+        assertThat(histogram.getValueAtPercentile(0)).isLessThanOrEqualTo(1015);
+    }
+
+    @Test
+    public void should_be_exact_under_128_nanoseconds_and_clamp_the_outliers() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3);
+        histogram.record(100);
+        histogram.record(Long.MAX_VALUE);
+
+        assertThat(histogram.getValueAtPercentile(33)).isEqualTo(3);
+        assertThat(histogram.getValueAtPercentile(66)).isEqualTo(100);
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(LatencyHistogram.MAX_TRACKABLE_NANOS);
+
+        histogram.reset();
+        assertThat(histogram.getTotalCount()).isEqualTo(0);
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(0);
+    }
+}
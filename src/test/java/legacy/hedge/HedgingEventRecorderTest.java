@@ -0,0 +1,96 @@
+package legacy.hedge;
+
+import legacy.dto.Transaction;
+import legacy.service.ITradingDataAccessService;
+import legacy.service.RemoteCallEvents;
+import legacy.service.implementation.CachingTradingDataAccessService;
+import legacy.service.implementation.SingleFlightTradingDataAccessService;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HedgingEventRecorderTest {
+
+    private final HedgingEventRecorder recorder = new HedgingEventRecorder(2);
+
+    @After
+    public void tearDown() {
+        recorder.stop();
+    }
+
+    @Test
+    public void should_record_the_remote_calls_of_the_current_position() {
+        final ITradingDataAccessService trading = mock(ITradingDataAccessService.class);
+        when(trading.getTransactionById(1042)).thenReturn(new Transaction());
+        doThrow(new IllegalStateException()).when(trading).computeDPSOnTheGrid(any(Long.class));
+        HedgingPositionManagementImpl management = new HedgingPositionManagementImpl() {
+            @Override
+            public ITradingDataAccessService getTradingDateAccessService() {
+                return RemoteCallEvents.wrap(ITradingDataAccessService.class, trading);
+            }
+        };
+        HedgingPosition hp = new HedgingPosition();
+        hp.setId(1042);
+        hp.setType(HedgingPositionTypeConst.CANCEL_TRANSACTION);
+
+        recorder.start();
+        try {
+            management.initHedgingPosition(hp);
+            fail("the failure of the service is rethrown");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        List<HedgingEvent> events = recorder.getEvents();
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0).getKind()).isEqualTo(HedgingEvent.Kind.REMOTE_CALL);
+        assertThat(events.get(0).getName()).isEqualTo("getTransactionById");
+        assertThat(events.get(0).getTransactionId()).isEqualTo(1042);
+        assertThat(events.get(0).getType()).isEqualTo(HedgingPositionTypeConst.CANCEL_TRANSACTION);
+        assertThat(events.get(0).getOutcome()).isEqualTo(HedgingEvents.OK);
+        assertThat(events.get(1).getName()).isEqualTo("computeDPSOnTheGrid");
+        assertThat(events.get(1).getTransactionId()).isEqualTo(1042);
+        assertThat(events.get(1).getOutcome()).isEqualTo("IllegalStateException");
+        assertThat(HedgingEvents.getCurrentPosition()).isNull();
+    }
+
+    @Test
+    public void should_not_record_the_cache_hits() {
+        ITradingDataAccessService remote = mock(ITradingDataAccessService.class);
+        when(remote.getTransactionById(7)).thenReturn(new Transaction());
+        ITradingDataAccessService service = new CachingTradingDataAccessService(new SingleFlightTradingDataAccessService(
+                RemoteCallEvents.wrap(ITradingDataAccessService.class, remote)));
+
+        recorder.start();
+        service.getTransactionById(7);
+        service.getTransactionById(7);
+
+        assertThat(recorder.getEvents()).hasSize(1);
+        assertThat(recorder.getEvents().get(0).getName()).isEqualTo("getTransactionById");
+    }
+
+    @Test
+    public void should_keep_the_last_events_while_started() {
+        HedgingEvents.commit(HedgingEvent.Kind.INIT, "before", null, HedgingEvents.OK, System.nanoTime());
+        recorder.start();
+        for (int i = 0; i < 3; i++) {
+            HedgingEvents.commit(HedgingEvent.Kind.STORAGE, "UPDATE", i, null, HedgingEvents.OK, System.nanoTime());
+        }
+        recorder.stop();
+        HedgingEvents.commit(HedgingEvent.Kind.INIT, "after", null, HedgingEvents.OK, System.nanoTime());
+
+        assertThat(recorder.getDroppedCount()).isEqualTo(1);
+        assertThat(recorder.getEvents()).hasSize(2);
+        assertThat(recorder.getEvents().get(0).getTransactionId()).isEqualTo(1);
+        assertThat(recorder.getEvents().get(1).getTransactionId()).isEqualTo(2);
+        assertThat(HedgingEvents.isEnabled()).isFalse();
+    }
+}
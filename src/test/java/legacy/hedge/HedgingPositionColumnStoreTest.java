@@ -0,0 +1,74 @@
+package legacy.hedge;
+
+import legacy.error.ErrorLevel;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Date;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class HedgingPositionColumnStoreTest {
+
+    private final HedgingPositionColumnStore store = new HedgingPositionColumnStore(2);
+
+    private HedgingPosition createHedgingPosition(final int id, final HedgingPositionStatusConst status) {
+        HedgingPosition hp = new HedgingPosition();
+        hp.setId(id);
+        hp.setTransactionId(1000 + id);
+        hp.setType(HedgingPositionTypeConst.EXT);
+        hp.setStatus(status);
+        hp.setValueDate(new Date(id * 86400000L));
+        hp.setCombck("210 42 CONTROL: [0x0x0x01h]");
+        hp.setCodtyptra(BigInteger.valueOf(294));
+        hp.setPrxref(id * 10.5);
+        hp.setQuantity("378.0");
+        hp.setErrorLevel(ErrorLevel.CONNECT_ERROR);
+        hp.setIkRtH("autobot");
+        return hp;
+    }
+
+    @Test
+    public void should_read_back_the_positions_through_a_view() {
+        for (int id = 1; id <= 5; id++) {
+            store.add(createHedgingPosition(id, HedgingPositionStatusConst.PENDING));
+        }
+
+        HedgingPosition hp = store.view().moveTo(3).toHedgingPosition();
+
+        assertThat(store.size()).isEqualTo(5);
+        assertThat(hp.getId()).isEqualTo(4);
+        assertThat(hp.getTransactionId()).isEqualTo(1004);
+        assertThat(hp.getType()).isEqualTo(HedgingPositionTypeConst.EXT);
+        assertThat(hp.getValueDate()).isEqualTo(new Date(4 * 86400000L));
+        assertThat(hp.getNoticePeriodEndDate()).isNull();
+        assertThat(hp.getCombck()).isEqualTo("210 42 CONTROL: [0x0x0x01h]");
+        assertThat(hp.getCodtyptra()).isEqualTo(BigInteger.valueOf(294));
+        assertThat(hp.getPrxref()).isEqualTo(42.0);
+        assertThat(hp.getNiverr()).isNull();
+        assertThat(hp.getErrorLevel()).isEqualTo(ErrorLevel.CONNECT_ERROR);
+        assertThat(hp.getBasprx()).isEqualTo(100.0);
+    }
+
+    @Test
+    public void should_write_in_place_and_aggregate() {
+        for (int id = 1; id <= 4; id++) {
+            store.add(createHedgingPosition(id, HedgingPositionStatusConst.PENDING));
+        }
+        HedgingPositionView view = store.view();
+        view.moveTo(0).setStatus(HedgingPositionStatusConst.HEDGED);
+        view.moveTo(2).setStatus(HedgingPositionStatusConst.HEDGED);
+
+        assertThat(store.countByStatus()[HedgingPositionStatusConst.HEDGED.ordinal()]).isEqualTo(2);
+        assertThat(store.countByStatus()[HedgingPositionStatusConst.PENDING.ordinal()]).isEqualTo(2);
+        assertThat(store.sumPrxref(HedgingPositionStatusConst.HEDGED)).isEqualTo(10.5 + 31.5);
+        assertThat(store.findByValueDate(new Date(2 * 86400000L), new Date(4 * 86400000L))).containsOnly(1, 2);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void should_not_move_past_the_last_row() {
+        store.add(createHedgingPosition(1, HedgingPositionStatusConst.PENDING));
+
+        store.view().moveTo(1);
+    }
+}
@@ -4,16 +4,23 @@ import legacy.dto.Amount;
 import legacy.dto.Book;
 import legacy.dto.Transaction;
 import legacy.error.CheckResult;
+import legacy.error.ErrorLevel;
 import legacy.service.*;
 import org.fest.assertions.api.Assertions;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.*;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 
 import static org.fest.assertions.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -50,6 +57,7 @@ public class HedgingPositionManagementImplTest {
         doReturn(iTradingDataAccessService).when(service).getTradingDateAccessService();
         doReturn(transactionManagerService).when(service).getTransactionManagerService();
         doReturn(analyticalService).when(service).getDataAccessService();
+        service.setBookRegistry(new BookRegistry(analyticalService));
 
         doReturn(createTradingOrderWithAmount(123)).when(hedgingPositionDataAccessService).getTrade(0);
 
@@ -201,6 +209,105 @@ public class HedgingPositionManagementImplTest {
         Assertions.assertThat(value.getHedgingTransactionId()).isNull();
     }
 
+    @Test
+    public void should_run_the_lookups_of_ini_concurrently() {
+        doReturn(createTransactionWithWay(TransactionWay.SHORT)).when(iTradingDataAccessService).getTransactionById(0);
+        // each lookup waits for the other, one after another they would time out
+        final CyclicBarrier bothLookups = new CyclicBarrier(2);
+        Mockito.doAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) throws Exception {
+                bothLookups.await(5, TimeUnit.SECONDS);
+                return "0x01h";
+            }
+        }).when(hedgingPositionDataAccessService).getControl();
+        final TradingOrder trade = createTradingOrderWithAmount(123);
+        Mockito.doAnswer(new Answer<TradingOrder>() {
+            @Override
+            public TradingOrder answer(InvocationOnMock invocation) throws Exception {
+                bothLookups.await(5, TimeUnit.SECONDS);
+                return trade;
+            }
+        }).when(hedgingPositionDataAccessService).getTrade(0);
+        HedgingPosition hp = new HedgingPosition();
+        hp.setType(HedgingPositionTypeConst.INI);
+
+        service.initAndSendHedgingPosition(hp);
+
+        HedgingPosition value = getHedgingPositionForThisTest(service);
+        Assertions.assertThat(value.getCombck()).endsWith(" CONTROL: [0x01h]");
+    }
+
+    @Test
+    public void should_run_a_batch_of_positions() {
+        doReturn(createTransactionWithWay(TransactionWay.SHORT)).when(iTradingDataAccessService).getTransactionById(0);
+        HedgingPosition ini = new HedgingPosition();
+        HedgingPosition ext = new HedgingPosition();
+        ext.setType(HedgingPositionTypeConst.EXT);
+
+        List<CheckResult<HedgingPosition>> results = service.initAndSendHedgingPositions(Arrays.asList(ini, ext));
+
+        Assertions.assertThat(results).hasSize(2);
+        for (CheckResult<HedgingPosition> result : results) {
+            Assertions.assertThat(result.isCheckIsOk()).isTrue();
+            Assertions.assertThat(result.getResult().getStatus()).isEqualTo(HedgingPositionStatusConst.HEDGED);
+        }
+        verify(service, times(2)).hedgePositionBySendTo3rdParty(Mockito.any(HedgingPosition.class));
+    }
+
+    @Test
+    public void should_not_fail_the_whole_batch_when_a_position_fails() {
+        doReturn(createTransactionWithWay(TransactionWay.SHORT)).when(iTradingDataAccessService).getTransactionById(0);
+        doThrow(new IllegalStateException()).when(iTradingDataAccessService).getTransactionById(1);
+        HedgingPosition broken = new HedgingPosition();
+        broken.setId(1);
+        broken.setErrorLevel(ErrorLevel.CONNECT_ERROR);
+        HedgingPosition hp = new HedgingPosition();
+
+        List<CheckResult<HedgingPosition>> results = service.initAndSendHedgingPositions(Arrays.asList(broken, hp));
+
+        Assertions.assertThat(results.get(0).isCheckIsOk()).isFalse();
+        Assertions.assertThat(results.get(0).getResult()).isSameAs(broken);
+        Assertions.assertThat(broken.getHedgeMsg()).isEqualTo(ErrorLevel.CONNECT_ERROR.createHMsgFromError());
+        Assertions.assertThat(results.get(1).isCheckIsOk()).isTrue();
+    }
+
+    @Test
+    public void should_reject_as_fatal_a_position_without_error_level() {
+        doThrow(new IllegalStateException()).when(iTradingDataAccessService).getTransactionById(0);
+        HedgingPosition hp = new HedgingPosition();
+
+        CheckResult<HedgingPosition> result = service.initAndSendHedgingPosition(hp);
+
+        Assertions.assertThat(result.isCheckIsOk()).isFalse();
+        Assertions.assertThat(result.getResult()).isSameAs(hp);
+        Assertions.assertThat(hp.getHedgeMsg()).isEqualTo(ErrorLevel.FATAL_ERROR.createHMsgFromError());
+    }
+
+    @Test
+    public void should_run_code_asynchronously() throws Exception {
+        doReturn(createTransactionWithWay(TransactionWay.LONG)).when(iTradingDataAccessService).getTransactionById(0);
+
+        CheckResult<HedgingPosition> result = service.initAndSendHedgingPositionAsync(new HedgingPosition()).get(10, TimeUnit.SECONDS);
+
+        Assertions.assertThat(result.getResult().getStatus()).isEqualTo(HedgingPositionStatusConst.HEDGED);
+        HedgingPosition value = getHedgingPositionForThisTest(service);
+        Assertions.assertThat(value.getTransactionWay()).isEqualTo("L");
+    }
+
+    @Test
+    public void should_complete_async_result_when_init_fails() throws Exception {
+        doThrow(new IllegalStateException()).when(iTradingDataAccessService).getTransactionById(0);
+        HedgingPosition hp = new HedgingPosition();
+        hp.setErrorLevel(ErrorLevel.FUNCTIONAL_ERROR);
+
+        CheckResult<HedgingPosition> result = service.initAndSendHedgingPositionAsync(hp).get(10, TimeUnit.SECONDS);
+
+        Assertions.assertThat(result.isCheckIsOk()).isFalse();
+        Assertions.assertThat(hp.getHedgeMsg()).isEqualTo(ErrorLevel.FUNCTIONAL_ERROR.createHMsgFromError());
+        verify(service, never()).hedgePositionBySendTo3rdParty(Mockito.any(HedgingPosition.class));
+    }
+
     private HedgingPosition getHedgingPositionForThisTest(final HedgingPositionManagementImpl serviceUnderTest) {
         ArgumentCaptor<HedgingPosition> argument = ArgumentCaptor.forClass(HedgingPosition.class);
         verify(serviceUnderTest).hedgePositionBySendTo3rdParty(argument.capture());
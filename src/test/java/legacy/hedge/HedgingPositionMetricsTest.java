@@ -0,0 +1,45 @@
+package legacy.hedge;
+
+import legacy.error.ErrorLevel;
+import legacy.hedge.HedgingPositionMetrics.Stage;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class HedgingPositionMetricsTest {
+
+    private final HedgingPositionMetrics metrics = new HedgingPositionMetrics();
+
+    @Test
+    public void should_keep_a_histogram_per_stage_and_type() {
+        metrics.record(Stage.TOWERING, HedgingPositionTypeConst.INI, System.nanoTime() - 5000000);
+        metrics.record(Stage.TOWERING, HedgingPositionTypeConst.EXT, System.nanoTime());
+        metrics.record(Stage.STORAGE, null, System.nanoTime());
+
+        assertThat(metrics.getHistogram(Stage.TOWERING, HedgingPositionTypeConst.INI).getTotalCount()).isEqualTo(1);
+        assertThat(metrics.getValueAtPercentile(Stage.TOWERING, HedgingPositionTypeConst.INI, 99.99)).isGreaterThanOrEqualTo(5000000);
+        assertThat(metrics.getHistogram(Stage.TOWERING, HedgingPositionTypeConst.EXT).getTotalCount()).isEqualTo(1);
+        assertThat(metrics.getHistogram(Stage.TOWERING, HedgingPositionTypeConst.CANCEL_POSITION).getTotalCount()).isEqualTo(0);
+        assertThat(metrics.getHistogram(Stage.STORAGE, null).getTotalCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_export_the_recorded_stages_and_the_errors() throws IOException {
+        metrics.record(Stage.ACTION, HedgingPositionTypeConst.CANCEL_TRANSACTION, System.nanoTime());
+        metrics.recordError(ErrorLevel.CONNECT_ERROR);
+        metrics.recordError(ErrorLevel.CONNECT_ERROR);
+        metrics.recordError(null);
+
+        StringWriter export = new StringWriter();
+        metrics.writeTo(export);
+
+        assertThat(metrics.getErrorCount(ErrorLevel.CONNECT_ERROR)).isEqualTo(2);
+        assertThat(export.toString())
+                .startsWith("# stage type count p50.0 p90.0 p99.0 p99.9 p99.99 max\nACTION CANCEL_TRANSACTION 1 ")
+                .contains("\nCONNECT_ERROR 2\n")
+                .doesNotContain("TOWERING");
+    }
+}
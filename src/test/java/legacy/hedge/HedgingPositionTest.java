@@ -0,0 +1,112 @@
+package legacy.hedge;
+
+import legacy.dto.Modif;
+import legacy.error.ErrorLevel;
+import legacy.persistence.FieldChange;
+import legacy.persistence.ObjectDTO;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class HedgingPositionTest {
+
+    private HedgingPosition createHedgingPosition() {
+        HedgingPosition hp = new HedgingPosition();
+        hp.setId(42);
+        hp.setVersion(3);
+        hp.setUpdateVersion(7);
+        hp.setUpdateDate(new Date(1000L));
+        hp.setTransactionId(1042);
+        hp.setType(HedgingPositionTypeConst.EXT);
+        hp.setStatus(HedgingPositionStatusConst.HEDGED);
+        hp.setValueDate(new Date(2000L));
+        hp.setNoticePeriodEndDate(new Date(3000L));
+        hp.setCombck("210 42 CONTROL: [0x0x0x01h]");
+        hp.setCodetyptkt(12);
+        hp.setTransactionWay("L");
+        hp.setErrorLevel(ErrorLevel.CONNECT_ERROR);
+        hp.setHedgeMsg("no message");
+        hp.setPrxref(518.28);
+        hp.setBasprx(0.5);
+        hp.setDaprx(new Date(4000L));
+        hp.setQuantity("378.0");
+        hp.setDatefinthe(new Date(5000L));
+        hp.setCodtyptra(BigInteger.valueOf(294));
+        hp.setMsgdev("dev");
+        hp.setMsgerr("err");
+        hp.setNiverr(2);
+        hp.setMsgusr("usr");
+        hp.setIkRtH("autobot");
+        hp.setHedgingTransactionId("H-1042");
+        Modif modif = new Modif();
+        modif.setUser("autobot");
+        modif.setVersion(2);
+        modif.setModificationDate(new Date(6000L));
+        modif.setChanges(new ArrayList<FieldChange>(Arrays.asList(
+                new FieldChange("status", HedgingPositionStatusConst.PENDING, HedgingPositionStatusConst.HEDGED),
+                new FieldChange("quantity", "12.0", "378.0"))));
+        hp.setLastModification(modif);
+        return hp;
+    }
+
+    @Test
+    public void should_copy_like_a_serialization_clone() throws Exception {
+        HedgingPosition hp = createHedgingPosition();
+
+        assertSameFields(new HedgingPosition(hp), SerializationUtils.clone(hp), HedgingPosition.class);
+    }
+
+    @Test
+    public void should_not_share_mutable_state() {
+        HedgingPosition hp = createHedgingPosition();
+        HedgingPosition copy = new HedgingPosition(hp);
+
+        copy.getValueDate().setTime(0L);
+        copy.setId(1);
+
+        assertThat(hp.getValueDate().getTime()).isEqualTo(2000L);
+        assertThat(hp.getId()).isEqualTo(42);
+    }
+
+    @Test
+    public void should_copy_the_last_modification() throws Exception {
+        HedgingPosition hp = createHedgingPosition();
+        HedgingPosition copy = new HedgingPosition(hp);
+
+        assertThat(copy.getLastModification()).isNotSameAs(hp.getLastModification());
+        assertThat(copy.getLastModification().getChanges()).isNotSameAs(hp.getLastModification().getChanges());
+        assertSameFields(copy.getLastModification(), hp.getLastModification(), Modif.class);
+
+        copy.getLastModification().getChanges().clear();
+        copy.getLastModification().getModificationDate().setTime(0L);
+
+        assertThat(hp.getLastModification().getChanges()).hasSize(2);
+        assertThat(hp.getLastModification().getModificationDate().getTime()).isEqualTo(6000L);
+    }
+
+    private void assertSameFields(Object actual, Object expected, Class<?> type) throws IllegalAccessException {
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                Object actualValue = field.get(actual);
+                Object expectedValue = field.get(expected);
+                if (expectedValue instanceof ObjectDTO) {
+                    assertSameFields(actualValue, expectedValue, Modif.class);
+                } else {
+                    assertThat(actualValue).as(field.getName()).isEqualTo(expectedValue);
+                }
+            }
+        }
+    }
+}
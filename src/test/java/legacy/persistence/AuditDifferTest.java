@@ -0,0 +1,64 @@
+package legacy.persistence;
+
+import legacy.hedge.HedgingPosition;
+import legacy.hedge.HedgingPositionStatusConst;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class AuditDifferTest {
+
+    @Test
+    public void should_find_the_audited_fields() {
+        assertThat(AuditDiffer.getAuditedFieldNames(HedgingPosition.class)).containsExactly(
+                "transactionId", "type", "status", "valueDate", "noticePeriodEndDate", "combck", "codetyptkt");
+    }
+
+    @Test
+    public void should_report_the_changed_audited_fields_only() {
+        HedgingPosition before = new HedgingPosition();
+        before.setStatus(HedgingPositionStatusConst.PENDING);
+        before.setValueDate(new Date(1000L));
+        HedgingPosition after = new HedgingPosition(before);
+        after.setStatus(HedgingPositionStatusConst.HEDGED);
+        after.setHedgeMsg("not audited");
+
+        List<FieldChange> changes = AuditDiffer.diff(before, after);
+
+        assertThat(changes).hasSize(1);
+        assertThat(changes.get(0).getFieldName()).isEqualTo("status");
+        assertThat(changes.get(0).getBefore()).isEqualTo(HedgingPositionStatusConst.PENDING);
+        assertThat(changes.get(0).getAfter()).isEqualTo(HedgingPositionStatusConst.HEDGED);
+    }
+
+    @Test
+    public void should_copy_dates_in_snapshots() {
+        HedgingPosition hp = new HedgingPosition();
+        hp.setValueDate(new Date(1000L));
+        Object[] before = AuditDiffer.snapshot(hp);
+
+        hp.getValueDate().setTime(2000L);
+
+        List<FieldChange> changes = AuditDiffer.diff(HedgingPosition.class, before, AuditDiffer.snapshot(hp));
+        assertThat(changes).hasSize(1);
+        assertThat(changes.get(0).getFieldName()).isEqualTo("valueDate");
+    }
+
+    @Test
+    public void should_read_the_audited_fields_through_the_getters() {
+        HedgingPosition hp = new HedgingPosition() {
+            @Override
+            public HedgingPositionStatusConst getStatus() {
+                return HedgingPositionStatusConst.HEDGED;
+            }
+        };
+
+        Object[] snapshot = AuditDiffer.snapshot(hp);
+
+        assertThat(snapshot[AuditDiffer.getAuditedFieldNames(HedgingPosition.class).indexOf("status")])
+                .isEqualTo(HedgingPositionStatusConst.HEDGED);
+    }
+}
@@ -0,0 +1,73 @@
+package legacy.persistence;
+
+import legacy.hedge.HedgingPosition;
+import legacy.hedge.HedgingPositionStatusConst;
+import legacy.hedge.HedgingPositionTypeConst;
+import legacy.error.ARPSystemException;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class DtoStoreTest {
+
+    private final DtoStore<HedgingPosition> store = new DtoStore<HedgingPosition>(HedgingPosition.class);
+
+    private HedgingPosition createHedgingPosition(final int id, final HedgingPositionStatusConst status, final long valueDay) {
+        HedgingPosition hp = new HedgingPosition();
+        hp.setId(id);
+        hp.setTransactionId(1000 + id);
+        hp.setType(HedgingPositionTypeConst.EXT);
+        hp.setStatus(status);
+        hp.setValueDate(new Date(valueDay * 86400000L));
+        return hp;
+    }
+
+    @Test
+    public void should_look_positions_up_by_primary_key() {
+        HedgingPosition hp = createHedgingPosition(1, HedgingPositionStatusConst.PENDING, 1);
+        store.put(hp);
+        hp.setStatus(HedgingPositionStatusConst.HEDGED);
+
+        assertThat(store.get(1).getStatus()).isEqualTo(HedgingPositionStatusConst.PENDING);
+        assertThat(store.get(2)).isNull();
+        assertThat(store.getIndexedFields()).containsOnly("transactionId", "type", "status", "valueDate");
+    }
+
+    @Test
+    public void should_keep_secondary_indexes_up_to_date() {
+        store.put(createHedgingPosition(1, HedgingPositionStatusConst.PENDING, 1));
+        store.put(createHedgingPosition(2, HedgingPositionStatusConst.PENDING, 2));
+        store.put(createHedgingPosition(3, HedgingPositionStatusConst.HEDGED, 3));
+
+        store.put(createHedgingPosition(1, HedgingPositionStatusConst.HEDGED, 1));
+        store.remove(3);
+
+        List<HedgingPosition> pending = store.findBy("status", HedgingPositionStatusConst.PENDING);
+        assertThat(pending).hasSize(1);
+        assertThat(pending.get(0).getId()).isEqualTo(2);
+        assertThat(store.findBy("status", HedgingPositionStatusConst.HEDGED)).hasSize(1);
+        assertThat(store.findBy("transactionId", 1002)).hasSize(1);
+        assertThat(store.findBy("type", HedgingPositionTypeConst.EXT)).hasSize(2);
+    }
+
+    @Test
+    public void should_find_value_dates_in_range() {
+        for (int id = 1; id <= 5; id++) {
+            store.put(createHedgingPosition(id, HedgingPositionStatusConst.PENDING, id));
+        }
+
+        List<HedgingPosition> found = store.findRange("valueDate", new Date(2 * 86400000L), new Date(4 * 86400000L));
+
+        assertThat(found).hasSize(2);
+        assertThat(found.get(0).getId()).isEqualTo(2);
+        assertThat(found.get(1).getId()).isEqualTo(3);
+    }
+
+    @Test(expected = ARPSystemException.class)
+    public void should_reject_a_field_that_is_not_indexed() {
+        store.findBy("combck", "x");
+    }
+}
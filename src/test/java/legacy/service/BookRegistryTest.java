@@ -0,0 +1,91 @@
+package legacy.service;
+
+import legacy.dto.Book;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BookRegistryTest {
+
+    @Mock
+    private IAnalyticalService analyticalService;
+
+    private BookRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new BookRegistry(analyticalService);
+        doReturn(new Book("golgoth", 12)).when(analyticalService).getBookByName("golgoth");
+        doReturn(createInStockBook("golgoth-instock", "666")).when(analyticalService).getBookByName("golgoth-instock");
+    }
+
+    private Book createInStockBook(final String name, final String portfolioIdByRank) {
+        Book book = new Book(name, 0);
+        book.setPortfolioIdByRank(portfolioIdByRank);
+        return book;
+    }
+
+    @Test
+    public void should_resolve_bod_code_with_and_without_stock() {
+        assertThat(registry.getBodCode("golgoth", true)).isEqualTo(12);
+        assertThat(registry.getBodCode("golgoth", false)).isEqualTo(666);
+    }
+
+    @Test
+    public void should_load_each_book_once() {
+        registry.warmUp(Arrays.asList("golgoth"));
+
+        registry.getBodCode("golgoth", true);
+        registry.getBodCode("golgoth", false);
+
+        verify(analyticalService, times(1)).getBookByName("golgoth");
+        verify(analyticalService, times(1)).getBookByName("golgoth-instock");
+    }
+
+    @Test
+    public void should_skip_books_that_cannot_be_warmed_up() {
+        registry.warmUp(Arrays.asList("unknown", "golgoth"));
+
+        verify(analyticalService, times(1)).getBookByName("golgoth-instock");
+    }
+
+    @Test
+    public void should_compute_bod_code_again_when_the_book_changed() {
+        registry.getBodCode("golgoth", false);
+
+        registry.onBookChanged(createInStockBook("golgoth-instock", "777"));
+
+        assertThat(registry.getBodCode("golgoth", false)).isEqualTo(777);
+        assertThat(registry.getBodCode("golgoth", true)).isEqualTo(12);
+        verify(analyticalService, times(1)).getBookByName("golgoth-instock");
+    }
+
+    @Test
+    public void should_warm_up_the_configured_books_when_started() {
+        BookRegistry started = new BookRegistry(analyticalService, Arrays.asList("golgoth"), 1, TimeUnit.HOURS);
+
+        started.start();
+
+        verify(analyticalService, times(1)).getBookByName("golgoth");
+        verify(analyticalService, times(1)).getBookByName("golgoth-instock");
+    }
+
+    @Test
+    public void should_load_the_book_again_after_the_ttl() {
+        BookRegistry expiring = new BookRegistry(analyticalService, Arrays.<String>asList(), 0, TimeUnit.MILLISECONDS);
+
+        expiring.getBodCode("golgoth", true);
+        expiring.getBodCode("golgoth", true);
+
+        verify(analyticalService, times(2)).getBookByName("golgoth");
+    }
+}
@@ -0,0 +1,97 @@
+package legacy.service;
+
+import legacy.dto.InputEnvelope;
+import legacy.dto.InputEvent;
+import legacy.hedge.HedgingPosition;
+import legacy.hedge.HedgingPositionStatusConst;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class HedgingPositionXmlWriterTest {
+
+    private final HedgingPositionXmlWriter writer = new HedgingPositionXmlWriter();
+
+    private HedgingPosition createPosition() {
+        HedgingPosition hp = new HedgingPosition();
+        hp.setId(7);
+        hp.setTransactionId(1234);
+        hp.setStatus(HedgingPositionStatusConst.HEDGED);
+        hp.setValueDate(new Date(1381320000000L));
+        hp.setCreDate(new Date(-1L));
+        hp.setCombck("35 7 CONTROL: [<0x0x0x01h> & é€]");
+        hp.setCodtyptra(new BigInteger("123456789012345678901234567890"));
+        hp.setPrxref(-1234.56789);
+        hp.setQuantity("63.0");
+        return hp;
+    }
+
+    private String write(final HedgingPosition hp) {
+        XmlOutputBuffer xml = writer.writeEnvelope(new InputEnvelope(Arrays.asList(new InputEvent(hp))));
+        return new String(xml.toByteArray(), Charset.forName("UTF-8"));
+    }
+
+    @Test
+    public void should_write_the_fields_of_the_position() {
+        String xml = write(createPosition());
+
+        assertThat(xml).startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?><envelope size=\"1\"><ticket id=\"1\"><hedgingPosition><id>7</id>");
+        assertThat(xml).contains("<transactionId>1234</transactionId><type>INI</type><status>HEDGED</status>");
+        assertThat(xml).contains("<valueDate>2013-10-09T12:00:00.000Z</valueDate>");
+        assertThat(xml).contains("<creDate>1969-12-31T23:59:59.999Z</creDate>");
+        assertThat(xml).contains("<combck>35 7 CONTROL: [&lt;0x0x0x01h&gt; &amp; é€]</combck>");
+        assertThat(xml).contains("<codtyptra>123456789012345678901234567890</codtyptra>");
+        assertThat(xml).contains("<prxref>-1234.5679</prxref><basprx>100.0000</basprx>");
+        assertThat(xml).endsWith("</hedgingPosition></ticket></envelope>");
+        assertThat(xml).doesNotContain("noticePeriodEndDate");
+    }
+
+    @Test
+    public void should_replace_the_characters_xml_does_not_allow() {
+        HedgingPosition hp = createPosition();
+        hp.setCombck("bell\u0007 tab\t lone\uD800 low\uDC00 pair\uD83D\uDE00 noncharacter\uFFFF");
+
+        String xml = write(hp);
+
+        assertThat(xml).contains("<combck>bell\uFFFD tab\t lone\uFFFD low\uFFFD pair\uD83D\uDE00 noncharacter\uFFFD</combck>");
+    }
+
+    @Test
+    public void should_number_the_tickets_and_keep_their_bounds() {
+        XmlOutputBuffer xml = writer.writeEnvelope(new InputEnvelope(Arrays.asList(
+                new InputEvent(createPosition()), new InputEvent(createPosition()))));
+        // one char per byte, the indexes are byte offsets
+        String document = new String(xml.toByteArray(), Charset.forName("ISO-8859-1"));
+        int[] bounds = writer.getTicketBounds();
+
+        assertThat(bounds).hasSize(3);
+        assertThat(document.indexOf("<ticket id=\"1\">")).isEqualTo(bounds[0]);
+        assertThat(document.indexOf("<ticket id=\"2\">")).isEqualTo(bounds[1]);
+        assertThat(document.lastIndexOf("</envelope>")).isEqualTo(bounds[2]);
+    }
+
+    @Test
+    public void should_not_allocate_per_ticket_once_warm() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        HedgingPosition hp = createPosition();
+        hp.setCodtyptra(BigInteger.valueOf(42));
+        InputEnvelope envelope = new InputEnvelope(Arrays.asList(new InputEvent(hp)));
+        for (int i = 0; i < 10000; i++) {
+            writer.writeEnvelope(envelope);
+        }
+
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 0; i < 10000; i++) {
+            writer.writeEnvelope(envelope);
+        }
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+        assertThat(allocated).isLessThan(10000);
+    }
+}
@@ -0,0 +1,103 @@
+package legacy.service;
+
+import legacy.error.ARPSystemException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class ServiceRegistryTest {
+
+    private final ServiceRegistry registry = new ServiceRegistry();
+    private final List<String> events = new ArrayList<String>();
+
+    private ServiceRegistry.Factory<Runnable> factory(final String name, final AtomicInteger created) {
+        return new ServiceRegistry.Factory<Runnable>() {
+            @Override
+            public Runnable create(final ServiceRegistry services) {
+                created.incrementAndGet();
+                return new RecordingService(name);
+            }
+        };
+    }
+
+    @Test
+    public void should_build_a_service_once_for_all_threads() throws Exception {
+        final AtomicInteger created = new AtomicInteger();
+        registry.register(Runnable.class, factory("runnable", created));
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        List<Future<Runnable>> services = new ArrayList<Future<Runnable>>();
+        for (int i = 0; i < 16; i++) {
+            services.add(threads.submit(new Callable<Runnable>() {
+                @Override
+                public Runnable call() {
+                    return registry.get(Runnable.class);
+                }
+            }));
+        }
+
+        for (Future<Runnable> service : services) {
+            assertThat(service.get()).isSameAs(registry.get(Runnable.class));
+        }
+        assertThat(created.get()).isEqualTo(1);
+        threads.shutdown();
+    }
+
+    @Test
+    public void should_start_and_stop_services_in_reverse_order() {
+        registry.register(Runnable.class, new RecordingService("first"));
+        registry.register(Object.class, new RecordingService("second"));
+
+        registry.get(Runnable.class);
+        registry.get(Object.class);
+        registry.stop();
+
+        assertThat(events).containsExactly("start first", "start second", "stop second", "stop first");
+    }
+
+    @Test
+    public void should_replace_the_implementation() {
+        AtomicInteger created = new AtomicInteger();
+        registry.register(Runnable.class, factory("old", created));
+        Runnable old = registry.get(Runnable.class);
+
+        registry.register(Runnable.class, factory("new", created));
+
+        assertThat(registry.get(Runnable.class)).isNotSameAs(old);
+        assertThat(events).containsExactly("start old", "stop old", "start new");
+    }
+
+    @Test(expected = ARPSystemException.class)
+    public void should_fail_on_unknown_service() {
+        registry.get(Runnable.class);
+    }
+
+    private class RecordingService implements Runnable, Lifecycle {
+        private final String name;
+
+        private RecordingService(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public void start() {
+            events.add("start " + name);
+        }
+
+        @Override
+        public void stop() {
+            events.add("stop " + name);
+        }
+    }
+}
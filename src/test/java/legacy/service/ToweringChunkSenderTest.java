@@ -0,0 +1,112 @@
+package legacy.service;
+
+import legacy.dto.InputEnvelope;
+import legacy.dto.InputEvent;
+import legacy.hedge.HedgingPosition;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class ToweringChunkSenderTest {
+
+    private final InputEnvelope envelope = new InputEnvelope(Collections.singletonList(new InputEvent(new HedgingPosition())));
+
+    private ToweringPayload payload(final int chunkCount) {
+        return new ToweringPayload(envelope, new byte[0], 0, chunkCount);
+    }
+
+    @Test
+    public void should_acknowledge_every_chunk() {
+        ToweringChunkSender sender = new ToweringChunkSender(4, new SleepingTransport(0));
+
+        ToweringReceipt receipt = sender.send(payload(20));
+
+        assertThat(receipt.isComplete()).isTrue();
+        assertThat(receipt.getAcknowledgedCount()).isEqualTo(20);
+        assertThat(receipt.getFirstMissingChunk()).isEqualTo(-1);
+        assertThat(receipt.getFailures()).isEmpty();
+    }
+
+    @Test
+    public void should_never_exceed_the_chunks_in_flight() {
+        SleepingTransport transport = new SleepingTransport(0);
+        ToweringChunkSender sender = new ToweringChunkSender(3, transport);
+
+        sender.send(payload(30));
+
+        assertThat(transport.maxInFlight.get()).isLessThanOrEqualTo(3);
+        assertThat(transport.maxInFlight.get()).isGreaterThan(1);
+    }
+
+    @Test
+    public void should_report_failed_chunks() {
+        ToweringChunkSender sender = new ToweringChunkSender(4, new SleepingTransport(7));
+
+        ToweringReceipt receipt = sender.send(payload(10));
+
+        assertThat(receipt.isComplete()).isFalse();
+        assertThat(receipt.getFirstMissingChunk()).isEqualTo(7);
+        assertThat(receipt.getFailures().keySet()).containsOnly(7);
+        assertThat(receipt.isAcknowledged(8)).isTrue();
+    }
+
+    @Test
+    public void should_resume_from_the_first_missing_chunk() {
+        SleepingTransport transport = new SleepingTransport(7);
+        ToweringChunkSender sender = new ToweringChunkSender(4, transport);
+        ToweringPayload payload = payload(10);
+        ToweringReceipt receipt = sender.send(payload);
+        transport.failingChunk = 0;
+
+        sender.resume(payload, receipt);
+
+        assertThat(receipt.isComplete()).isTrue();
+        assertThat(receipt.getFailures()).isEmpty();
+        assertThat(receipt.getAttempts()).isEqualTo(2);
+        assertThat(receipt.getChunksSent()).isEqualTo(11);
+    }
+
+    @Test
+    public void should_retry_missing_chunks_up_to_max_attempts() {
+        SleepingTransport transport = new SleepingTransport(3);
+        transport.failuresLeft.set(2);
+        ToweringChunkSender sender = new ToweringChunkSender(4, 3, transport);
+
+        ToweringReceipt receipt = sender.send(payload(10));
+
+        assertThat(receipt.isComplete()).isTrue();
+        assertThat(receipt.getAttempts()).isEqualTo(3);
+        assertThat(receipt.getChunksSent()).isEqualTo(12);
+    }
+
+    private static class SleepingTransport implements ToweringChunkTransport {
+        private volatile int failingChunk;
+        private final AtomicInteger failuresLeft = new AtomicInteger(Integer.MAX_VALUE);
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        private SleepingTransport(final int failingChunk) {
+            this.failingChunk = failingChunk;
+        }
+
+        @Override
+        public void sendChunk(final ToweringPayload payload, final int chunk) throws Exception {
+            int current = inFlight.incrementAndGet();
+            try {
+                int max;
+                do {
+                    max = maxInFlight.get();
+                } while (current > max && !maxInFlight.compareAndSet(max, current));
+                Thread.sleep(10);
+                if (chunk == failingChunk && failuresLeft.getAndDecrement() > 0) {
+                    throw new IllegalStateException("connection reset");
+                }
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package legacy.service;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import legacy.dto.InputEnvelope;
+import legacy.dto.InputEvent;
+import legacy.hedge.HedgingPosition;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class ToweringEnvelopeBatcherTest {
+
+    @Test
+    public void should_send_a_full_envelope_at_once() throws Exception {
+        RecordingBatcher batcher = new RecordingBatcher(3, TimeUnit.HOURS.toMillis(1));
+
+        ListenableFuture<ToweringTicketReceipt> first = batcher.submit(event());
+        batcher.submit(event());
+        ListenableFuture<ToweringTicketReceipt> last = batcher.submit(event());
+
+        assertThat(last.get(5, TimeUnit.SECONDS).isComplete()).isTrue();
+        assertThat(first.get(5, TimeUnit.SECONDS).getEnvelopeReceipt()).isSameAs(last.get().getEnvelopeReceipt());
+        assertThat(first.get().getTicketId()).isEqualTo(1);
+        assertThat(last.get().getTicketId()).isEqualTo(3);
+        assertThat(batcher.envelopeSizes).containsExactly(3);
+    }
+
+    @Test
+    public void should_send_a_partial_envelope_after_linger() throws Exception {
+        RecordingBatcher batcher = new RecordingBatcher(10, 50);
+
+        batcher.submit(event());
+        ListenableFuture<ToweringTicketReceipt> receipt = batcher.submit(event());
+
+        assertThat(receipt.get(5, TimeUnit.SECONDS).isComplete()).isTrue();
+        assertThat(batcher.envelopeSizes).containsExactly(2);
+    }
+
+    @Test
+    public void should_fail_every_ticket_of_a_failed_envelope() throws Exception {
+        ToweringEnvelopeBatcher batcher = new ToweringEnvelopeBatcher(2, 50) {
+            @Override
+            protected ToweringReceipt sendEnvelope(final InputEnvelope envelope) {
+                throw new IllegalStateException("Towering is down");
+            }
+        };
+
+        ListenableFuture<ToweringTicketReceipt> first = batcher.submit(event());
+        ListenableFuture<ToweringTicketReceipt> second = batcher.submit(event());
+
+        assertThat(failed(first)).isTrue();
+        assertThat(failed(second)).isTrue();
+    }
+
+    @Test
+    public void should_fail_the_tickets_when_the_envelope_dies_with_an_error() throws Exception {
+        ToweringEnvelopeBatcher batcher = new ToweringEnvelopeBatcher(1, 50) {
+            @Override
+            protected ToweringReceipt sendEnvelope(final InputEnvelope envelope) {
+                throw new AssertionError("no more memory");
+            }
+        };
+
+        assertThat(failed(batcher.submit(event()))).isTrue();
+    }
+
+    @Test
+    public void should_fail_the_tickets_submitted_after_shutdown() throws Exception {
+        RecordingBatcher batcher = new RecordingBatcher(2, 50);
+        batcher.shutdown();
+
+        assertThat(failed(batcher.submit(event()))).isTrue();
+        assertThat(batcher.envelopeSizes).isEmpty();
+    }
+
+    @Test
+    public void should_give_up_waiting_for_a_late_receipt() throws Exception {
+        RecordingBatcher batcher = new RecordingBatcher(2, TimeUnit.HOURS.toMillis(1));
+
+        try {
+            batcher.submitAndWait(event(), 50, TimeUnit.MILLISECONDS);
+            fail("no receipt was expected");
+        } catch (TimeoutException e) {
+            assertThat(batcher.envelopeSizes).isEmpty();
+        }
+    }
+
+    @Test
+    public void should_resolve_each_ticket_from_its_own_chunks() throws Exception {
+        ToweringEnvelopeBatcher batcher = new ToweringEnvelopeBatcher(2, 50) {
+            @Override
+            protected ToweringReceipt sendEnvelope(final InputEnvelope envelope) {
+                ToweringReceipt receipt = new ToweringReceipt(4, new int[] {1, 3}, new int[] {2, 4});
+                receipt.acknowledge(1);
+                receipt.acknowledge(2);
+                receipt.acknowledge(4);
+                receipt.fail(3, new IllegalStateException("chunk lost"));
+                return receipt;
+            }
+        };
+
+        ListenableFuture<ToweringTicketReceipt> first = batcher.submit(event());
+        ListenableFuture<ToweringTicketReceipt> second = batcher.submit(event());
+
+        assertThat(first.get(5, TimeUnit.SECONDS).isComplete()).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS).isComplete()).isFalse();
+        assertThat(second.get().getFailures().keySet()).containsOnly(3);
+    }
+
+    private boolean failed(final ListenableFuture<ToweringTicketReceipt> receipt) throws Exception {
+        try {
+            receipt.get(5, TimeUnit.SECONDS);
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        }
+    }
+
+    private InputEvent event() {
+        return new InputEvent(new HedgingPosition());
+    }
+
+    private static class RecordingBatcher extends ToweringEnvelopeBatcher {
+        private final List<Integer> envelopeSizes = new CopyOnWriteArrayList<Integer>();
+
+        private RecordingBatcher(final int maxEnvelopeSize, final long lingerMillis) {
+            super(maxEnvelopeSize, lingerMillis);
+        }
+
+        @Override
+        protected ToweringReceipt sendEnvelope(final InputEnvelope envelope) {
+            envelopeSizes.add(envelope.size());
+            ToweringReceipt receipt = new ToweringReceipt(1);
+            receipt.acknowledge(1);
+            return receipt;
+        }
+    }
+}
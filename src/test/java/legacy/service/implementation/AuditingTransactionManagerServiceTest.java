@@ -0,0 +1,132 @@
+package legacy.service.implementation;
+
+import legacy.dto.Modif;
+import legacy.error.ARPSystemException;
+import legacy.hedge.HedgingPosition;
+import legacy.hedge.HedgingPositionStatusConst;
+import legacy.security.User;
+import legacy.security.UserSessionsManager;
+import legacy.service.ITransactionManagerService;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+public class AuditingTransactionManagerServiceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AuditingTransactionManagerService service = new AuditingTransactionManagerService(new TransactionManagerService());
+
+    @After
+    public void tearDown() {
+        UserSessionsManager.getInstance().login(null);
+    }
+
+    @Test
+    public void should_audit_every_field_on_first_storage() {
+        HedgingPosition hp = new HedgingPosition();
+        hp.setId(1);
+
+        service.classStorageAction(hp);
+
+        Modif modif = hp.getLastModification();
+        assertThat(modif.getDTOID()).isEqualTo(1);
+        assertThat(modif.getAuditableClassName()).isEqualTo(HedgingPosition.class.getName());
+        assertThat(modif.getChanges()).hasSize(7);
+    }
+
+    @Test
+    public void should_audit_the_changes_since_last_storage() {
+        User user = new User();
+        user.setName("michel");
+        UserSessionsManager.getInstance().login(user);
+        HedgingPosition hp = new HedgingPosition();
+        hp.setId(1);
+        hp.setStatus(HedgingPositionStatusConst.PENDING);
+        service.classStorageAction(hp);
+        Modif creation = hp.getLastModification();
+
+        service.classStorageAction(hp);
+        assertThat(hp.getLastModification()).isSameAs(creation);
+
+        hp.setStatus(HedgingPositionStatusConst.HEDGED);
+        service.classStorageAction(hp);
+        Modif modif = hp.getLastModification();
+        assertThat(modif.getUser()).isEqualTo("michel");
+        assertThat(modif.getVersion()).isEqualTo(creation.getVersion() + 1);
+        assertThat(modif.getChanges()).hasSize(1);
+        assertThat(modif.getChanges().get(0).getAfter()).isEqualTo(HedgingPositionStatusConst.HEDGED);
+    }
+
+    @Test
+    public void should_audit_the_user_who_initialized_the_position() {
+        HedgingPosition hp = new HedgingPosition();
+        hp.setId(1);
+        hp.setIkRtH("michel");
+
+        service.classStorageAction(hp);
+
+        assertThat(hp.getLastModification().getUser()).isEqualTo("michel");
+    }
+
+    @Test
+    public void should_keep_the_last_stored_state_when_the_storage_fails() {
+        ITransactionManagerService delegate = mock(ITransactionManagerService.class);
+        AuditingTransactionManagerService failing = new AuditingTransactionManagerService(delegate);
+        HedgingPosition hp = new HedgingPosition();
+        hp.setId(1);
+        hp.setStatus(HedgingPositionStatusConst.PENDING);
+        failing.classStorageAction(hp);
+        Modif creation = hp.getLastModification();
+
+        hp.setStatus(HedgingPositionStatusConst.HEDGED);
+        doThrow(new ARPSystemException("down")).when(delegate).classStorageAction(hp);
+        try {
+            failing.classStorageAction(hp);
+            fail("the storage failure should be thrown");
+        } catch (ARPSystemException e) {
+            // expected
+        }
+        doReturn(hp).when(delegate).classStorageAction(hp);
+        hp.setLastModification(creation);
+        failing.classStorageAction(hp);
+
+        Modif modif = hp.getLastModification();
+        assertThat(modif.getChanges()).hasSize(1);
+        assertThat(modif.getChanges().get(0).getBefore()).isEqualTo(HedgingPositionStatusConst.PENDING);
+        assertThat(modif.getChanges().get(0).getAfter()).isEqualTo(HedgingPositionStatusConst.HEDGED);
+    }
+
+    @Test
+    public void should_read_the_state_it_does_not_hold_from_the_journal() {
+        HedgingPositionJournal journal = new HedgingPositionJournal(folder.getRoot());
+        AuditingTransactionManagerService audited = new AuditingTransactionManagerService(
+                new JournalTransactionManagerService(journal), journal, 1);
+        audited.start();
+        try {
+            HedgingPosition hp = new HedgingPosition();
+            hp.setId(1);
+            hp.setStatus(HedgingPositionStatusConst.PENDING);
+            audited.classStorageAction(hp);
+            HedgingPosition other = new HedgingPosition();
+            other.setId(2);
+            audited.classStorageAction(other);
+
+            hp.setStatus(HedgingPositionStatusConst.HEDGED);
+            audited.classStorageAction(hp);
+
+            assertThat(hp.getLastModification().getChanges()).hasSize(1);
+            assertThat(hp.getLastModification().getChanges().get(0).getBefore()).isEqualTo(HedgingPositionStatusConst.PENDING);
+        } finally {
+            audited.stop();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package legacy.service.implementation;
+
+import legacy.dto.Transaction;
+import legacy.service.ITradingDataAccessService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingTradingDataAccessServiceTest {
+
+    @Mock
+    private ITradingDataAccessService trading;
+
+    private CachingTradingDataAccessService service;
+
+    @Before
+    public void setUp() {
+        service = new CachingTradingDataAccessService(trading, 2, 1, TimeUnit.HOURS);
+        doReturn(createTransaction(1, 3)).when(trading).getTransactionById(1);
+        doReturn(createTransaction(2, 0)).when(trading).getTransactionById(2);
+        doReturn(createTransaction(3, 0)).when(trading).getTransactionById(3);
+    }
+
+    private Transaction createTransaction(final int id, final int updateVersion) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setUpdateVersion(updateVersion);
+        return transaction;
+    }
+
+    @Test
+    public void should_fetch_a_transaction_once() {
+        Transaction first = service.getTransactionById(1);
+        Transaction second = service.getTransactionById(1);
+
+        assertThat(second).isSameAs(first);
+        verify(trading, times(1)).getTransactionById(1);
+        assertThat(service.stats().hitCount()).isEqualTo(1);
+        assertThat(service.stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_evict_when_full() {
+        service.getTransactionById(1);
+        service.getTransactionById(2);
+        service.getTransactionById(3);
+
+        assertThat(service.size()).isEqualTo(2);
+        assertThat(service.stats().evictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_invalidate_only_older_versions() {
+        service.getTransactionById(1);
+
+        service.invalidate(1, 3);
+        service.getTransactionById(1);
+        verify(trading, times(1)).getTransactionById(1);
+
+        service.invalidate(1, 4);
+        service.getTransactionById(1);
+        verify(trading, times(2)).getTransactionById(1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void should_rethrow_the_failure_of_the_lookup() {
+        doThrow(new IllegalStateException()).when(trading).getTransactionById(4);
+
+        service.getTransactionById(4);
+    }
+}
@@ -0,0 +1,63 @@
+package legacy.service.implementation;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class DataCenterRouterTest {
+
+    private final AtomicBoolean fx01Available = new AtomicBoolean(false);
+    private final AtomicInteger probes = new AtomicInteger();
+
+    private final DataCenterRouter router = new DataCenterRouter(Arrays.asList(DataCenter.FX01, DataCenter.FX07), new DataCenterRouter.Probe() {
+        @Override
+        public boolean isAvailable(final DataCenter dataCenter) {
+            probes.incrementAndGet();
+            return fx01Available.get();
+        }
+    }, 5, 20);
+
+    @After
+    public void tearDown() {
+        router.shutdown();
+    }
+
+    @Test
+    public void should_route_to_the_preferred_data_center() {
+        assertThat(router.route()).isEqualTo(DataCenter.FX01);
+    }
+
+    @Test
+    public void should_stick_to_the_fallback_while_the_preferred_one_is_down() throws Exception {
+        assertThat(router.markDown(DataCenter.FX01)).isTrue();
+
+        Thread.sleep(100);
+
+        assertThat(router.route()).isEqualTo(DataCenter.FX07);
+        assertThat(probes.get()).isGreaterThan(1);
+    }
+
+    @Test
+    public void should_switch_back_once_the_probe_succeeds() throws Exception {
+        router.markDown(DataCenter.FX01);
+        fx01Available.set(true);
+
+        for (int i = 0; i < 100 && router.isDown(DataCenter.FX01); i++) {
+            Thread.sleep(10);
+        }
+
+        assertThat(router.route()).isEqualTo(DataCenter.FX01);
+    }
+
+    @Test
+    public void should_report_when_everything_is_down() {
+        router.markDown(DataCenter.FX01);
+
+        assertThat(router.markDown(DataCenter.FX07)).isFalse();
+    }
+}
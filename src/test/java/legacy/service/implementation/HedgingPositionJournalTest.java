@@ -0,0 +1,159 @@
+package legacy.service.implementation;
+
+import legacy.dto.Modif;
+import legacy.error.ErrorLevel;
+import legacy.hedge.HedgingPosition;
+import legacy.hedge.HedgingPositionStatusConst;
+import legacy.hedge.HedgingPositionTypeConst;
+import legacy.persistence.FieldChange;
+import legacy.persistence.StorageActionEnum;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class HedgingPositionJournalTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HedgingPositionJournal journal;
+
+    @After
+    public void tearDown() {
+        journal.close();
+    }
+
+    private HedgingPositionJournal openJournal() {
+        journal = new HedgingPositionJournal(folder.getRoot(), SEGMENT_SIZE, HedgingPositionJournal.FsyncPolicy.ALWAYS, 0);
+        journal.open();
+        return journal;
+    }
+
+    private HedgingPosition createHedgingPosition(final int id, final HedgingPositionStatusConst status) {
+        HedgingPosition hp = new HedgingPosition();
+        hp.setId(id);
+        hp.setStorageUpdate(StorageActionEnum.UPDATE);
+        hp.setTransactionId(1000 + id);
+        hp.setType(HedgingPositionTypeConst.EXT);
+        hp.setStatus(status);
+        hp.setValueDate(new Date(86400000L * id));
+        hp.setCombck("210 42 CONTROL: [0x0x0x01h]");
+        hp.setCodtyptra(BigInteger.valueOf(294).shiftLeft(70));
+        hp.setPrxref(518.28);
+        hp.setQuantity("378.0");
+        hp.setNiverr(2);
+        hp.setErrorLevel(ErrorLevel.FUNCTIONAL_ERROR);
+        hp.setIkRtH("autobot");
+        return hp;
+    }
+
+    @Test
+    public void should_rebuild_the_latest_state_of_each_position() {
+        openJournal();
+        journal.append(createHedgingPosition(1, HedgingPositionStatusConst.PENDING));
+        HedgingPosition hp = createHedgingPosition(1, HedgingPositionStatusConst.HEDGED);
+        Modif modif = new Modif();
+        modif.setUser("michel");
+        hp.setLastModification(modif);
+        journal.append(Arrays.asList(hp,
+                createHedgingPosition(2, HedgingPositionStatusConst.REJECTED)));
+        journal.close();
+
+        openJournal();
+
+        assertThat(journal.getPositions()).hasSize(2);
+        HedgingPosition replayed = journal.get(1);
+        assertThat(replayed.getStatus()).isEqualTo(HedgingPositionStatusConst.HEDGED);
+        assertThat(replayed.getTransactionId()).isEqualTo(1001);
+        assertThat(replayed.getValueDate()).isEqualTo(new Date(86400000L));
+        assertThat(replayed.getCodtyptra()).isEqualTo(BigInteger.valueOf(294).shiftLeft(70));
+        assertThat(replayed.getPrxref()).isEqualTo(518.28);
+        assertThat(replayed.getNiverr()).isEqualTo(2);
+        assertThat(replayed.getErrorLevel()).isEqualTo(ErrorLevel.FUNCTIONAL_ERROR);
+        assertThat(replayed.getNoticePeriodEndDate()).isNull();
+        assertThat(replayed.getLastModification().getUser()).isEqualTo("michel");
+        assertThat(journal.get(2).getStatus()).isEqualTo(HedgingPositionStatusConst.REJECTED);
+    }
+
+    @Test
+    public void should_keep_the_audited_changes() {
+        HedgingPosition hp = createHedgingPosition(1, HedgingPositionStatusConst.HEDGED);
+        Modif modif = new Modif();
+        modif.setChanges(Arrays.asList(
+                new FieldChange("status", HedgingPositionStatusConst.PENDING, HedgingPositionStatusConst.HEDGED),
+                new FieldChange("valueDate", null, new Date(86400000L)),
+                new FieldChange("transactionId", 0, 1001),
+                new FieldChange("combck", "old", "new")));
+        hp.setLastModification(modif);
+        openJournal();
+        journal.append(hp);
+        journal.close();
+
+        List<FieldChange> changes = openJournal().get(1).getLastModification().getChanges();
+
+        assertThat(changes).hasSize(4);
+        for (int i = 0; i < changes.size(); i++) {
+            assertThat(changes.get(i).getFieldName()).isEqualTo(modif.getChanges().get(i).getFieldName());
+            assertThat(changes.get(i).getBefore()).isEqualTo(modif.getChanges().get(i).getBefore());
+            assertThat(changes.get(i).getAfter()).isEqualTo(modif.getChanges().get(i).getAfter());
+        }
+    }
+
+    @Test
+    public void should_roll_over_and_compact_segments() {
+        openJournal();
+        for (int i = 0; i < 30; i++) {
+            journal.append(createHedgingPosition(i % 3 + 1, HedgingPositionStatusConst.values()[i % 5]));
+        }
+        assertThat(journal.getSegmentCount()).isGreaterThan(1);
+
+        journal.compact();
+        journal.close();
+
+        assertThat(folder.getRoot().list()).hasSize(1);
+        openJournal();
+        assertThat(journal.getPositions()).hasSize(3);
+        assertThat(journal.get(3).getStatus()).isEqualTo(HedgingPositionStatusConst.values()[29 % 5]);
+    }
+
+    @Test
+    public void should_drop_a_torn_record() throws Exception {
+        openJournal();
+        journal.append(createHedgingPosition(1, HedgingPositionStatusConst.HEDGED));
+        journal.append(createHedgingPosition(2, HedgingPositionStatusConst.HEDGED));
+        journal.close();
+        File segment = folder.getRoot().listFiles()[0];
+        RandomAccessFile file = new RandomAccessFile(segment, "rw");
+        try {
+            // the end of the second record never made it to disk
+            long secondRecordEnd = 2 * (8 + new HedgingPositionRecordCodec().encode(
+                    createHedgingPosition(1, HedgingPositionStatusConst.HEDGED)).remaining());
+            file.seek(secondRecordEnd - 4);
+            file.writeInt(0);
+        } finally {
+            file.close();
+        }
+
+        openJournal();
+        assertThat(journal.getPositions()).hasSize(1);
+        journal.append(createHedgingPosition(3, HedgingPositionStatusConst.PENDING));
+        journal.close();
+
+        openJournal();
+        assertThat(journal.get(1)).isNotNull();
+        assertThat(journal.get(2)).isNull();
+        assertThat(journal.get(3).getStatus()).isEqualTo(HedgingPositionStatusConst.PENDING);
+    }
+}
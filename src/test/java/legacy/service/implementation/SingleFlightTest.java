@@ -0,0 +1,139 @@
+package legacy.service.implementation;
+
+import legacy.service.IHedgingPositionDataAccessService;
+import legacy.service.TradingOrder;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+import static org.mockito.Mockito.*;
+
+public class SingleFlightTest {
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        callers.shutdownNow();
+    }
+
+    private <V> List<Future<V>> callConcurrently(final SingleFlight<Integer, V> flight, final Callable<V> call,
+            int callerCount) throws InterruptedException {
+        List<Future<V>> results = new ArrayList<Future<V>>();
+        for (int i = 0; i < callerCount; i++) {
+            results.add(callers.submit(new Callable<V>() {
+                @Override
+                public V call() {
+                    return flight.call(1042, call);
+                }
+            }));
+        }
+        return results;
+    }
+
+    private void letTheCallersArrive(SingleFlight<?, ?> flight) throws InterruptedException {
+        // a caller waiting for the call in flight cannot be observed, give them time
+        Thread.sleep(200);
+        assertThat(flight.getInFlightCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_share_one_call_between_concurrent_callers() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        SingleFlight<Integer, String> flight = new SingleFlight<Integer, String>(10, TimeUnit.SECONDS);
+
+        List<Future<String>> results = callConcurrently(flight, new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                calls.incrementAndGet();
+                release.await();
+                return "HT_1042";
+            }
+        }, 5);
+        letTheCallersArrive(flight);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("HT_1042");
+        }
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(flight.getSharedCount()).isEqualTo(4);
+        assertThat(flight.getInFlightCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void should_share_the_failure_and_call_again_afterwards() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        SingleFlight<Integer, String> flight = new SingleFlight<Integer, String>(10, TimeUnit.SECONDS);
+
+        List<Future<String>> results = callConcurrently(flight, new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                release.await();
+                throw new IllegalStateException("remote down");
+            }
+        }, 3);
+        letTheCallersArrive(flight);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail("the failure is shared");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(IllegalStateException.class).hasMessage("remote down");
+            }
+        }
+        assertThat(flight.call(1042, new Callable<String>() {
+            @Override
+            public String call() {
+                return "HT_1042";
+            }
+        })).isEqualTo("HT_1042");
+    }
+
+    @Test
+    public void should_stop_waiting_for_a_stuck_call() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        IHedgingPositionDataAccessService delegate = mock(IHedgingPositionDataAccessService.class);
+        final TradingOrder trade = new TradingOrder();
+        doReturn(trade).when(delegate).getTrade(1042);
+        final SingleFlightHedgingPositionDataAccessService service =
+                new SingleFlightHedgingPositionDataAccessService(delegate, 100, TimeUnit.MILLISECONDS);
+        Future<TradingOrder> stuck = callers.submit(new Callable<TradingOrder>() {
+            @Override
+            public TradingOrder call() {
+                return service.getTradeFlights().call(1042, new Callable<TradingOrder>() {
+                    @Override
+                    public TradingOrder call() throws Exception {
+                        release.await();
+                        return null;
+                    }
+                });
+            }
+        });
+        letTheCallersArrive(service.getTradeFlights());
+
+        assertThat(service.getTrade(1042)).isSameAs(trade);
+        assertThat(service.getTradeFlights().getTimeoutCount()).isEqualTo(1);
+        // each method has its own flights
+        doReturn("HT_1042").when(delegate).getHedgingTransactionIdByTransactionId(1042);
+        assertThat(service.getHedgingTransactionIdByTransactionId(1042)).isEqualTo("HT_1042");
+
+        release.countDown();
+        assertThat(stuck.get(5, TimeUnit.SECONDS)).isNull();
+    }
+}
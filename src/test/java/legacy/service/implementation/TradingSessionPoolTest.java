@@ -0,0 +1,90 @@
+package legacy.service.implementation;
+
+import legacy.error.ARPSystemException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class TradingSessionPoolTest {
+
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicBoolean healthy = new AtomicBoolean(true);
+
+    private final TradingSessionPool.SessionFactory factory = new TradingSessionPool.SessionFactory() {
+        @Override
+        public TradingSession open() {
+            opened.incrementAndGet();
+            return new TradingSession(DataCenter.FX07);
+        }
+
+        @Override
+        public boolean isHealthy(final TradingSession session) {
+            return healthy.get();
+        }
+    };
+
+    private TradingSessionPool pool = new TradingSessionPool(factory, 2, 60000, 50);
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void should_reuse_released_sessions() {
+        TradingSession first = pool.borrow();
+        pool.release(first);
+        TradingSession second = pool.borrow();
+
+        assertThat(second).isSameAs(first);
+        assertThat(opened.get()).isEqualTo(1);
+    }
+
+    @Test(expected = ARPSystemException.class)
+    public void should_not_open_more_than_max_size_sessions() {
+        pool.borrow();
+        pool.borrow();
+
+        pool.borrow();
+    }
+
+    @Test
+    public void should_replace_unhealthy_sessions() {
+        TradingSession first = pool.borrow();
+        pool.release(first);
+        healthy.set(false);
+
+        TradingSession second = pool.borrow();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(first.isClosed()).isTrue();
+    }
+
+    @Test
+    public void should_give_back_the_slot_of_an_invalidated_session() {
+        pool.invalidate(pool.borrow());
+        pool.borrow();
+        pool.borrow();
+
+        assertThat(opened.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void should_close_idle_sessions() throws Exception {
+        pool.shutdown();
+        pool = new TradingSessionPool(factory, 2, 10, 50);
+        TradingSession session = pool.borrow();
+        pool.release(session);
+
+        for (int i = 0; i < 100 && pool.getIdleCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+
+        assertThat(pool.getIdleCount()).isEqualTo(0);
+        assertThat(session.isClosed()).isTrue();
+    }
+}
@@ -0,0 +1,143 @@
+package legacy.service.implementation;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import legacy.hedge.HedgingPosition;
+import legacy.hedge.HedgingPositionStatusConst;
+import legacy.persistence.StorageActionEnum;
+import legacy.service.ITransactionManagerService;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.*;
+
+public class WriteBehindTransactionManagerServiceTest {
+
+    private final ITransactionManagerService storage = spy(new TransactionManagerService());
+    private WriteBehindTransactionManagerService service;
+
+    @After
+    public void tearDown() {
+        service.stop();
+    }
+
+    private HedgingPosition createHedgingPosition(final int id, final StorageActionEnum action,
+                                                  final HedgingPositionStatusConst status) {
+        HedgingPosition hp = new HedgingPosition();
+        hp.setId(id);
+        hp.setStorageUpdate(action);
+        hp.setStatus(status);
+        return hp;
+    }
+
+    @Test
+    public void should_coalesce_the_changes_of_a_position() throws Exception {
+        service = new WriteBehindTransactionManagerService(storage, 10, TimeUnit.HOURS.toMillis(1));
+        HedgingPosition hp = createHedgingPosition(7, StorageActionEnum.CREATE, HedgingPositionStatusConst.PENDING);
+        ListenableFuture<HedgingPosition> created = service.store(hp);
+        hp.setStorageUpdate(StorageActionEnum.UPDATE);
+        hp.setStatus(HedgingPositionStatusConst.HEDGED);
+        ListenableFuture<HedgingPosition> updated = service.store(hp);
+        service.store(createHedgingPosition(8, StorageActionEnum.UPDATE, HedgingPositionStatusConst.HEDGED));
+        assertThat(service.getPendingCount()).isEqualTo(2);
+
+        service.flush();
+
+        HedgingPosition stored = updated.get(1, TimeUnit.SECONDS);
+        assertThat(created.get(1, TimeUnit.SECONDS)).isSameAs(stored);
+        assertThat(stored.getStatus()).isEqualTo(HedgingPositionStatusConst.HEDGED);
+        assertThat(stored.getStorageUpdate()).isEqualTo(StorageActionEnum.CREATE);
+        ArgumentCaptor<List> group = ArgumentCaptor.forClass(List.class);
+        verify(storage, times(1)).classStorageActions(group.capture());
+        assertThat(group.getValue()).hasSize(2);
+    }
+
+    @Test
+    public void should_not_coalesce_positions_without_id() throws Exception {
+        service = new WriteBehindTransactionManagerService(storage, 10, TimeUnit.HOURS.toMillis(1));
+        service.store(createHedgingPosition(0, StorageActionEnum.CREATE, HedgingPositionStatusConst.PENDING));
+        service.store(createHedgingPosition(0, StorageActionEnum.CREATE, HedgingPositionStatusConst.PENDING));
+
+        assertThat(service.getPendingCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_commit_when_the_group_is_full() throws Exception {
+        service = new WriteBehindTransactionManagerService(storage, 3, TimeUnit.HOURS.toMillis(1));
+        List<ListenableFuture<HedgingPosition>> durables = new ArrayList<ListenableFuture<HedgingPosition>>();
+        for (int id = 1; id <= 3; id++) {
+            durables.add(service.store(createHedgingPosition(id, StorageActionEnum.UPDATE, HedgingPositionStatusConst.HEDGED)));
+        }
+
+        for (int i = 0; i < durables.size(); i++) {
+            assertThat(durables.get(i).get(1, TimeUnit.SECONDS).getId()).isEqualTo(i + 1);
+        }
+        verify(storage, times(1)).classStorageActions(anyListOf(HedgingPosition.class));
+    }
+
+    @Test
+    public void should_commit_after_the_latency() throws Exception {
+        service = new WriteBehindTransactionManagerService(storage, 100, 10);
+
+        ListenableFuture<HedgingPosition> durable = service.store(
+                createHedgingPosition(1, StorageActionEnum.UPDATE, HedgingPositionStatusConst.HEDGED));
+
+        assertThat(durable.get(1, TimeUnit.SECONDS).getId()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_fail_every_position_of_a_failed_group() throws Exception {
+        service = new WriteBehindTransactionManagerService(storage, 100, TimeUnit.HOURS.toMillis(1));
+        doThrow(new IllegalStateException("database down")).when(storage).classStorageActions(anyListOf(HedgingPosition.class));
+        ListenableFuture<HedgingPosition> durable = service.store(
+                createHedgingPosition(1, StorageActionEnum.UPDATE, HedgingPositionStatusConst.HEDGED));
+
+        service.flush();
+
+        try {
+            durable.get(1, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+            return;
+        }
+        throw new AssertionError("the position should not be stored");
+    }
+
+    @Test
+    public void should_not_return_before_the_group_is_committed() throws Exception {
+        service = new WriteBehindTransactionManagerService(storage, 100, 50);
+        long start = System.nanoTime();
+
+        service.classStorageAction(createHedgingPosition(1, StorageActionEnum.UPDATE, HedgingPositionStatusConst.HEDGED));
+
+        // the STORAGE stage times this call, the commit latency is part of it
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(45);
+        verify(storage, times(1)).classStorageActions(anyListOf(HedgingPosition.class));
+    }
+
+    @Test
+    public void should_wait_for_the_commit_and_throw_its_failure() throws Exception {
+        service = new WriteBehindTransactionManagerService(storage, 100, 10);
+        HedgingPosition hp = createHedgingPosition(1, StorageActionEnum.UPDATE, HedgingPositionStatusConst.HEDGED);
+
+        HedgingPosition stored = service.classStorageAction(hp);
+
+        assertThat(stored.getId()).isEqualTo(1);
+        verify(storage, times(1)).classStorageActions(anyListOf(HedgingPosition.class));
+        doThrow(new IllegalStateException("database down")).when(storage).classStorageActions(anyListOf(HedgingPosition.class));
+        try {
+            service.classStorageAction(hp);
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessage("database down");
+            return;
+        }
+        throw new AssertionError("the failure of the commit should reach the caller");
+    }
+}